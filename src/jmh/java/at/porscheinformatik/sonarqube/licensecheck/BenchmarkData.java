@@ -0,0 +1,252 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.DEPENDENCY_MAPPING;
+import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_MAPPING;
+import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_SET;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.scanner.fs.InputProject;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.api.utils.log.Loggers;
+
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMapping;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMapping;
+
+/**
+ * Generated (but reproducible) licenses, mappings and dependencies for the benchmarks.
+ */
+public final class BenchmarkData
+{
+    private BenchmarkData()
+    {
+    }
+
+    public static String licenseId(int index)
+    {
+        return "License-" + index;
+    }
+
+    /**
+     * @param count number of licenses
+     * @return licenses - every fifth one is not allowed
+     */
+    public static List<License> licenses(int count)
+    {
+        List<License> licenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            licenses.add(new License("Benchmark License " + i, licenseId(i), i % 5 != 0));
+        }
+        return licenses;
+    }
+
+    /**
+     * @param count number of dependencies
+     * @param licenseCount number of licenses to choose from
+     * @return dependencies - mostly with a single license, some with an SPDX expression, some without a license
+     */
+    public static Set<Dependency> dependencies(int count, int licenseCount)
+    {
+        Random random = new Random(42);
+        Set<Dependency> dependencies = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++)
+        {
+            String license;
+            int kind = random.nextInt(10);
+            if (kind == 0)
+            {
+                license = null;
+            }
+            else if (kind == 1)
+            {
+                license = "(" + licenseId(random.nextInt(licenseCount)) + " OR "
+                    + licenseId(random.nextInt(licenseCount)) + ")";
+            }
+            else
+            {
+                license = licenseId(random.nextInt(licenseCount));
+            }
+            dependencies.add(new Dependency(groupId(i) + ":artifact-" + i, "1." + (i % 10) + ".0", license,
+                LicenseCheckRulesDefinition.LANG_JAVA));
+        }
+        return dependencies;
+    }
+
+    /**
+     * @param count number of mappings
+     * @param licenseCount number of licenses to map to
+     * @return dependency mappings for group ids of {@link #dependencies(int, int)}
+     */
+    public static List<DependencyMapping> dependencyMappings(int count, int licenseCount)
+    {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new DependencyMapping(groupId(i).replace(".", "\\.") + ":.*", licenseId(i % licenseCount),
+                i % 10 == 0))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param count number of mappings
+     * @param licenseCount number of licenses to map to
+     * @return license mappings matching {@link #licenseName(int)}
+     */
+    public static List<LicenseMapping> licenseMappings(int count, int licenseCount)
+    {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new LicenseMapping(".*Benchmark License Text " + i + "\\b.*", licenseId(i % licenseCount)))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param index the index of a license mapping (a name without mapping if not below the mapping count)
+     * @return a license name as found in a POM or package.json
+     */
+    public static String licenseName(int index)
+    {
+        return "The Benchmark License Text " + index + " (see LICENSE)";
+    }
+
+    /**
+     * @return the settings as stored by SonarQube
+     */
+    public static Configuration configuration(List<License> licenses, List<LicenseMapping> licenseMappings,
+        List<DependencyMapping> dependencyMappings)
+    {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(LICENSE_SET, indexes(licenses.size()));
+        for (int i = 0; i < licenses.size(); i++)
+        {
+            String idxProp = LICENSE_SET + "." + (i + 1) + ".";
+            settings.put(idxProp + License.FIELD_NAME, licenses.get(i).getName());
+            settings.put(idxProp + License.FIELD_ID, licenses.get(i).getIdentifier());
+            settings.put(idxProp + License.FIELD_ALLOWED, licenses.get(i).getAllowed().toString());
+        }
+        settings.put(LICENSE_MAPPING, indexes(licenseMappings.size()));
+        for (int i = 0; i < licenseMappings.size(); i++)
+        {
+            String idxProp = LICENSE_MAPPING + "." + (i + 1) + ".";
+            settings.put(idxProp + LicenseMapping.FIELD_REGEX, licenseMappings.get(i).getRegex().pattern());
+            settings.put(idxProp + LicenseMapping.FIELD_LICENSE, licenseMappings.get(i).getLicense());
+        }
+        settings.put(DEPENDENCY_MAPPING, indexes(dependencyMappings.size()));
+        for (int i = 0; i < dependencyMappings.size(); i++)
+        {
+            String idxProp = DEPENDENCY_MAPPING + "." + (i + 1) + ".";
+            settings.put(idxProp + DependencyMapping.FIELD_KEY, dependencyMappings.get(i).getKey());
+            settings.put(idxProp + DependencyMapping.FIELD_LICENSE, dependencyMappings.get(i).getLicense());
+            settings.put(idxProp + DependencyMapping.FIELD_OVERWRITE,
+                String.valueOf(dependencyMappings.get(i).getOverwrite()));
+        }
+        return new MapConfiguration(settings);
+    }
+
+    /**
+     * @return a sensor context which ignores all issues - {@link org.sonar.api.batch.sensor.internal.SensorContextTester}
+     *     keeps them, so memory would grow with every benchmark invocation
+     */
+    public static SensorContext discardingSensorContext()
+    {
+        InputProject project = fluentProxy(InputProject.class, null);
+        return fluentProxy(SensorContext.class, project);
+    }
+
+    /**
+     * Issues are logged on INFO - keep writing to the console out of the measurement.
+     */
+    public static void disableInfoLogging(Class<?> type)
+    {
+        try
+        {
+            Loggers.get(type).setLevel(LoggerLevel.WARN);
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // logger implementation without levels
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fluentProxy(Class<T> type, InputProject project)
+    {
+        return (T) Proxy.newProxyInstance(BenchmarkData.class.getClassLoader(), new Class<?>[]{type},
+            (proxy, method, args) -> {
+                Class<?> returnType = method.getReturnType();
+                if ("project".equals(method.getName()))
+                {
+                    return project;
+                }
+                if ("key".equals(method.getName()) || "toString".equals(method.getName()))
+                {
+                    return "benchmark-project";
+                }
+                if ("hashCode".equals(method.getName()))
+                {
+                    return System.identityHashCode(proxy);
+                }
+                if ("equals".equals(method.getName()))
+                {
+                    return proxy == args[0];
+                }
+                if (returnType.isInstance(proxy))
+                {
+                    return proxy;
+                }
+                // e.g. newIssue() and newLocation()
+                return returnType.isInterface() ? fluentProxy(returnType, project) : null;
+            });
+    }
+
+    private static String groupId(int index)
+    {
+        return "org.example.group" + index % 100;
+    }
+
+    private static String indexes(int count)
+    {
+        return IntStream.rangeClosed(1, count).mapToObj(Integer::toString).collect(Collectors.joining(","));
+    }
+
+    private static final class MapConfiguration implements Configuration
+    {
+        private final Map<String, String> settings;
+
+        private MapConfiguration(Map<String, String> settings)
+        {
+            this.settings = settings;
+        }
+
+        @Override
+        public Optional<String> get(String key)
+        {
+            return Optional.ofNullable(settings.get(key));
+        }
+
+        @Override
+        public boolean hasKey(String key)
+        {
+            return settings.containsKey(key);
+        }
+
+        @Override
+        public String[] getStringArray(String key)
+        {
+            return get(key).filter(value -> !value.isEmpty())
+                .map(value -> value.split(","))
+                .orElse(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+/**
+ * Runs the whole sensor on a generated project (see {@link EcosystemFixture}) and compares wall time, peak heap and
+ * peak number of open files with a baseline. Not a JMH benchmark - most of the time is spent in the file system and
+ * the Maven process, so each analysis is measured as a whole. Not run by default, start it with
+ * <pre>
+ * mvn -Pbenchmark test -Dtest=LicenseCheckSensorMacroBenchmark
+ * </pre>
+ * System properties:
+ * <ul>
+ * <li><code>licensecheck.macro.dependencies</code> - dependencies per ecosystem (default 2000)</li>
+ * <li><code>licensecheck.macro.parentDepth</code> - parent POMs above each Maven dependency (default 3)</li>
+ * <li><code>licensecheck.macro.runs</code> - measured analyses after one warmup analysis (default 5)</li>
+ * <li><code>licensecheck.macro.baseline</code> - baseline file, written if it does not exist (default
+ * <code>target/macro-benchmark-baseline.properties</code>)</li>
+ * <li><code>licensecheck.macro.updateBaseline</code> - overwrite the baseline with this run</li>
+ * <li><code>licensecheck.macro.maxRegression</code> - allowed regression in percent (default 25)</li>
+ * </ul>
+ * The results are written to <code>target/macro-benchmark.properties</code>.
+ */
+public class LicenseCheckSensorMacroBenchmark
+{
+    private static final Logger LOGGER = Loggers.get(LicenseCheckSensorMacroBenchmark.class);
+    private static final String PREFIX = "licensecheck.macro.";
+    private static final String DEPENDENCIES = "dependencies";
+    private static final String PARENT_DEPTH = "parentDepth";
+    private static final String WALL_TIME = "wallTimeMs";
+    private static final String PEAK_HEAP = "peakHeapBytes";
+    private static final String PEAK_OPEN_FILES = "peakOpenFiles";
+
+    /**
+     * Differences below these are noise, whatever the percentage.
+     */
+    private static final Map<String, Long> MIN_REGRESSION = new HashMap<>();
+
+    static
+    {
+        MIN_REGRESSION.put(WALL_TIME, 100L);
+        MIN_REGRESSION.put(PEAK_HEAP, 32L * 1024 * 1024);
+        MIN_REGRESSION.put(PEAK_OPEN_FILES, 8L);
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Map<String, String> previousSystemProperties = new HashMap<>();
+
+    @After
+    public void restoreSystemProperties()
+    {
+        previousSystemProperties.forEach((key, value) -> {
+            if (value == null)
+            {
+                System.clearProperty(key);
+            }
+            else
+            {
+                System.setProperty(key, value);
+            }
+        });
+    }
+
+    @Test
+    public void analysis() throws Exception
+    {
+        // Maven is replaced by a shell script
+        assumeFalse(System.getProperty("os.name").startsWith("Windows"));
+
+        int dependencies = Integer.getInteger(PREFIX + DEPENDENCIES, 2000);
+        int parentDepth = Integer.getInteger(PREFIX + PARENT_DEPTH, 3);
+        int runs = Integer.getInteger(PREFIX + "runs", 5);
+        EcosystemFixture fixture =
+            new EcosystemFixture(temporaryFolder.getRoot().toPath()).all(dependencies, parentDepth).generate();
+        fixture.getSystemProperties().forEach((key, value) -> {
+            previousSystemProperties.put(key, System.getProperty(key));
+            System.setProperty(key, value);
+        });
+        BenchmarkData.disableInfoLogging(ValidateLicenses.class);
+
+        analyze(fixture);
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < runs; i++)
+        {
+            measurements.add(analyze(fixture));
+        }
+
+        Properties result = new Properties();
+        result.setProperty(DEPENDENCIES, String.valueOf(dependencies));
+        result.setProperty(PARENT_DEPTH, String.valueOf(parentDepth));
+        result.setProperty(WALL_TIME, String.valueOf(median(measurements.stream()
+            .map(measurement -> measurement.wallTimeMs).collect(Collectors.toList()))));
+        result.setProperty(PEAK_HEAP, String.valueOf(measurements.stream()
+            .mapToLong(measurement -> measurement.peakHeapBytes).max().orElse(0)));
+        result.setProperty(PEAK_OPEN_FILES, String.valueOf(measurements.stream()
+            .mapToLong(measurement -> measurement.peakOpenFiles).max().orElse(0)));
+        LOGGER.warn("Analysis of {} dependencies: {}", fixture.getDependencyCount(), result);
+        store(result, Paths.get("target", "macro-benchmark.properties"));
+
+        Path baselineFile = Paths.get(System.getProperty(PREFIX + "baseline",
+            "target/macro-benchmark-baseline.properties"));
+        if (!Files.exists(baselineFile) || Boolean.getBoolean(PREFIX + "updateBaseline"))
+        {
+            LOGGER.warn("Writing baseline {}", baselineFile);
+            store(result, baselineFile);
+            return;
+        }
+
+        Properties baseline = load(baselineFile);
+        assertThat("Baseline " + baselineFile + " was recorded with other counts",
+            baseline.getProperty(DEPENDENCIES) + "/" + baseline.getProperty(PARENT_DEPTH),
+            is(dependencies + "/" + parentDepth));
+        int maxRegression = Integer.getInteger(PREFIX + "maxRegression", 25);
+        List<String> regressions = new ArrayList<>();
+        for (String key : new String[]{WALL_TIME, PEAK_HEAP, PEAK_OPEN_FILES})
+        {
+            long expected = Long.parseLong(baseline.getProperty(key));
+            long actual = Long.parseLong(result.getProperty(key));
+            if (actual > expected * (100 + maxRegression) / 100 && actual - expected > MIN_REGRESSION.get(key))
+            {
+                regressions.add(key + ": " + actual + " (baseline " + expected + ")");
+            }
+        }
+        assertThat("More than " + maxRegression + "% slower or bigger than " + baselineFile, regressions, empty());
+    }
+
+    /**
+     * One analysis with a new sensor and context, like the scanner does.
+     */
+    private static Measurement analyze(EcosystemFixture fixture) throws IOException, InterruptedException
+    {
+        SensorContextTester context = fixture.createContext();
+        LicenseCheckSensor sensor = EcosystemFixture.createSensor(context);
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        OpenFilesSampler openFiles = new OpenFilesSampler();
+        openFiles.start();
+
+        long start = System.nanoTime();
+        sensor.execute(context);
+        long wallTimeMs = (System.nanoTime() - start) / 1_000_000;
+
+        openFiles.stop();
+        // the pools peak at different times, so this is an upper bound
+        long peakHeapBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new Measurement(wallTimeMs, peakHeapBytes, openFiles.getPeak());
+    }
+
+    private static long median(List<Long> values)
+    {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.isEmpty() ? 0 : sorted.get(sorted.size() / 2);
+    }
+
+    private static Properties load(Path file) throws IOException
+    {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file))
+        {
+            properties.load(input);
+        }
+        return properties;
+    }
+
+    private static void store(Properties properties, Path file) throws IOException
+    {
+        if (file.toAbsolutePath().getParent() != null)
+        {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (OutputStream output = Files.newOutputStream(file))
+        {
+            properties.store(output, "LicenseCheckSensorMacroBenchmark");
+        }
+    }
+
+    private static final class Measurement
+    {
+        private final long wallTimeMs;
+        private final long peakHeapBytes;
+        private final long peakOpenFiles;
+
+        private Measurement(long wallTimeMs, long peakHeapBytes, long peakOpenFiles)
+        {
+            this.wallTimeMs = wallTimeMs;
+            this.peakHeapBytes = peakHeapBytes;
+            this.peakOpenFiles = peakOpenFiles;
+        }
+    }
+
+    /**
+     * Samples the number of open file descriptors of the JVM (including the pipes to the Maven process) every
+     * millisecond and keeps the maximum above the count at the start. Counting every single open would need an
+     * agent - files opened and closed between two samples are missed, leaked or concurrently opened ones are not.
+     * Always 0 if the JVM does not report open file descriptors (e.g. on Windows).
+     */
+    private static final class OpenFilesSampler
+    {
+        private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final AtomicLong peak = new AtomicLong();
+        private Thread thread;
+
+        void start()
+        {
+            if (!(os instanceof UnixOperatingSystemMXBean))
+            {
+                return;
+            }
+            long initial = ((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount();
+            thread = new Thread(() -> {
+                while (running.get())
+                {
+                    long open = ((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount() - initial;
+                    peak.accumulateAndGet(open, Math::max);
+                    try
+                    {
+                        Thread.sleep(1);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "open-files-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws InterruptedException
+        {
+            running.set(false);
+            if (thread != null)
+            {
+                thread.join();
+            }
+        }
+
+        long getPeak()
+        {
+            return peak.get();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+/**
+ * Serialization of the dependency and license measures.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasureBenchmark
+{
+    @Param({"100", "1000", "10000"})
+    public int dependencyCount;
+
+    @Param({"50", "500"})
+    public int licenseCount;
+
+    private Set<Dependency> dependencies;
+    private List<License> licenses;
+
+    @Setup
+    public void setUp()
+    {
+        dependencies = BenchmarkData.dependencies(dependencyCount, licenseCount);
+        licenses = BenchmarkData.licenses(licenseCount);
+    }
+
+    @Benchmark
+    public String dependencyCreateString()
+    {
+        return Dependency.createString(dependencies);
+    }
+
+    @Benchmark
+    public String dependencyMeasureEncode()
+    {
+        return DependencyMeasure.encode(dependencies, false);
+    }
+
+    @Benchmark
+    public String licenseCreateJsonString()
+    {
+        return License.createJsonString(licenses);
+    }
+}
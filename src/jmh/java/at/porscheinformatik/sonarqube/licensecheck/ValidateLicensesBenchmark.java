@@ -0,0 +1,82 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.config.Configuration;
+
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+import at.porscheinformatik.sonarqube.licensecheck.license.LicenseService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicenseService;
+
+/**
+ * {@link ValidateLicenses} for all dependencies of a module. About 10% of the dependencies have no license and 10% an
+ * SPDX expression, every fifth license is not allowed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidateLicensesBenchmark
+{
+    @Param({"100", "1000", "10000"})
+    public int dependencyCount;
+
+    @Param({"10", "100"})
+    public int mappingCount;
+
+    @Param({"50", "500"})
+    public int licenseCount;
+
+    private ValidateLicenses validateLicenses;
+    private Set<Dependency> dependencies;
+    private SensorContext context;
+
+    @Setup
+    public void setUp()
+    {
+        List<License> licenses = BenchmarkData.licenses(licenseCount);
+        Configuration configuration = BenchmarkData.configuration(licenses, Collections.emptyList(),
+            BenchmarkData.dependencyMappings(mappingCount, licenseCount));
+        ProjectLicenseService projectLicenseService = new ProjectLicenseService(configuration);
+        validateLicenses = new ValidateLicenses(new LicensePolicyLoader(
+            new LicenseService(configuration, projectLicenseService), projectLicenseService,
+            new LicenseMappingService(configuration), new DependencyMappingService(configuration)));
+
+        BenchmarkData.disableInfoLogging(ValidateLicenses.class);
+        context = BenchmarkData.discardingSensorContext();
+        dependencies = BenchmarkData.dependencies(dependencyCount, licenseCount);
+        dependencies.forEach(dependency -> dependency.setInputComponent(context.project()));
+    }
+
+    @Benchmark
+    public Set<Dependency> validateLicenses()
+    {
+        // the dependency mappings are applied in the first invocation, afterwards they do not change anything
+        return validateLicenses.validateLicenses(dependencies, context);
+    }
+
+    @Benchmark
+    public Set<License> getUsedLicenses()
+    {
+        return validateLicenses.getUsedLicenses(dependencies, context.project());
+    }
+}
@@ -0,0 +1,84 @@
+package at.porscheinformatik.sonarqube.licensecheck.licensemapping;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.porscheinformatik.sonarqube.licensecheck.BenchmarkData;
+
+/**
+ * {@link LicenseMappingService#mapLicense(String)} for {@value #NAME_COUNT} distinct license names, half of them
+ * without a matching mapping. The score is per license name.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LicenseMappingBenchmark
+{
+    private static final int NAME_COUNT = 200;
+
+    @Param({"10", "100", "500"})
+    public int mappingCount;
+
+    @Param({"50", "500"})
+    public int licenseCount;
+
+    private LicenseMappingService licenseMappingService;
+    private String[] licenseNames;
+
+    @Setup
+    public void setUp()
+    {
+        licenseMappingService = new LicenseMappingService(BenchmarkData.configuration(
+            BenchmarkData.licenses(licenseCount), BenchmarkData.licenseMappings(mappingCount, licenseCount),
+            Collections.emptyList()));
+        licenseNames = new String[NAME_COUNT];
+        for (int i = 0; i < NAME_COUNT; i++)
+        {
+            licenseNames[i] = BenchmarkData.licenseName(i * 2 * mappingCount / NAME_COUNT);
+        }
+    }
+
+    /**
+     * Repeated names as in a real analysis - mostly served from the memoized results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NAME_COUNT)
+    public void mapLicense(Blackhole blackhole)
+    {
+        for (String licenseName : licenseNames)
+        {
+            blackhole.consume(licenseMappingService.mapLicense(licenseName));
+        }
+    }
+
+    /**
+     * First use in an analysis: reads and compiles the mappings and matches every name once.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NAME_COUNT)
+    public void mapLicenseAfterInvalidate(Blackhole blackhole)
+    {
+        licenseMappingService.invalidate();
+        for (String licenseName : licenseNames)
+        {
+            blackhole.consume(licenseMappingService.mapLicense(licenseName));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package at.porscheinformatik.sonarqube.licensecheck.maven;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link MavenDependencyScanner#findDependency(String)} for the output of <code>dependency:list</code> of a module -
+ * the score is per module (all lines). Every tenth dependency has a classifier.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindDependencyBenchmark
+{
+    @Param({"100", "1000", "10000"})
+    public int dependencyCount;
+
+    private String[] lines;
+
+    @Setup
+    public void setUp()
+    {
+        lines = new String[dependencyCount];
+        for (int i = 0; i < dependencyCount; i++)
+        {
+            String artifactId = "artifact-" + i;
+            String version = "1." + (i % 10) + ".0";
+            String classifier = i % 10 == 0 ? "sources" : null;
+            String path = "/home/benchmark/.m2/repository/org/example/" + artifactId + "/" + version + "/" + artifactId
+                + "-" + version + (classifier != null ? "-" + classifier : "") + ".jar";
+            lines[i] = "   org.example.group" + (i % 100) + ":" + artifactId + ":jar:"
+                + (classifier != null ? classifier + ":" : "") + version + ":compile:" + path
+                + " -- module " + artifactId.replace('-', '.') + " (auto)";
+        }
+    }
+
+    @Benchmark
+    public void findDependency(Blackhole blackhole)
+    {
+        for (String line : lines)
+        {
+            blackhole.consume(MavenDependencyScanner.findDependency(line));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.scanner.ScannerSide;
+
+/**
+ * Time spent in the phases of the license check and some counters, collected over all modules of one analysis.
+ * Thread-safe, as the scanners run concurrently. Phases running in several threads at the same time (e.g. POM
+ * parsing or license mapping) add up the time of all threads.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_PROJECT)
+public final class AnalysisStatistics
+{
+    static final int REPORT_VERSION = 1;
+
+    public enum Phase
+    {
+        /** all executions of the sensor */
+        TOTAL("total"),
+        /** running all scanners (wall time) */
+        SCAN("scan"),
+        MAVEN_INVOCATION("mavenInvocation"),
+        POM_PARSING("pomParsing"),
+        /** compiling the license mappings and matching license names */
+        LICENSE_MAPPING("licenseMapping"),
+        VALIDATION("validation"),
+        /** serializing and saving the measures */
+        MEASURES("measures");
+
+        private final String key;
+
+        Phase(String key)
+        {
+            this.key = key;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+    }
+
+    public enum Counter
+    {
+        FILES_READ("filesRead"),
+        POMS_PARSED("pomsParsed"),
+        /** POM licenses found in the in-memory or persistent cache */
+        POM_CACHE_HITS("pomCacheHits"),
+        PROCESSES_FORKED("processesForked"),
+        /** manifests whose dependencies were taken from the {@link DependencyCache} */
+        DEPENDENCY_CACHE_HITS("dependencyCacheHits");
+
+        private final String key;
+
+        Counter(String key)
+        {
+            this.key = key;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+    }
+
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    private final Map<String, LongAdder> scannerNanos = new ConcurrentHashMap<>();
+
+    public AnalysisStatistics()
+    {
+        // all keys are present, so the maps are only read concurrently
+        for (Phase phase : Phase.values())
+        {
+            phaseNanos.put(phase, new LongAdder());
+        }
+        for (Counter counter : Counter.values())
+        {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    public void addTime(Phase phase, long nanos)
+    {
+        phaseNanos.get(phase).add(nanos);
+    }
+
+    /**
+     * @param scanner name of the scanner
+     * @param nanos time of one {@link Scanner#scan} call
+     */
+    public void addScannerTime(String scanner, long nanos)
+    {
+        scannerNanos.computeIfAbsent(scanner, s -> new LongAdder()).add(nanos);
+    }
+
+    public void increment(Counter counter)
+    {
+        counters.get(counter).increment();
+    }
+
+    public long getMillis(Phase phase)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase).sum());
+    }
+
+    public long get(Counter counter)
+    {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * @return time of each scanner in milliseconds, by scanner name
+     */
+    public Map<String, Long> getScannerMillis()
+    {
+        Map<String, Long> scannerMillis = new TreeMap<>();
+        scannerNanos.forEach((scanner, nanos) ->
+            scannerMillis.put(scanner, TimeUnit.NANOSECONDS.toMillis(nanos.sum())));
+        return Collections.unmodifiableMap(scannerMillis);
+    }
+
+    public void clear()
+    {
+        phaseNanos.values().forEach(LongAdder::reset);
+        counters.values().forEach(LongAdder::reset);
+        scannerNanos.clear();
+    }
+
+    /**
+     * @param projectKey the key of the analyzed project
+     * @param dependencyCount number of dependencies found
+     * @return the timing report - all times in milliseconds
+     */
+    public String toJson(String projectKey, int dependencyCount)
+    {
+        StringWriter jsonString = new StringWriter();
+        try (JsonGenerator generator = Json.createGenerator(jsonString))
+        {
+            generator.writeStartObject()
+                .write("version", REPORT_VERSION)
+                .write("project", projectKey)
+                .write("dependencies", dependencyCount);
+            generator.writeStartObject("phases");
+            for (Phase phase : Phase.values())
+            {
+                generator.write(phase.getKey(), getMillis(phase));
+            }
+            generator.writeEnd();
+            generator.writeStartObject("scanners");
+            for (Map.Entry<String, Long> scanner : getScannerMillis().entrySet())
+            {
+                generator.write(scanner.getKey(), scanner.getValue());
+            }
+            generator.writeEnd();
+            generator.writeStartObject("counters");
+            for (Counter counter : Counter.values())
+            {
+                generator.write(counter.getKey(), get(counter));
+            }
+            generator.writeEnd();
+            generator.writeEnd();
+        }
+        return jsonString.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.scanner.ScannerSide;
+
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+/**
+ * Collects the dependencies and licenses of all modules of one analysis until the root module saves them. There is one
+ * instance per analysis, so nothing is kept between analyses running in the same JVM (e.g. a Gradle daemon).
+ * <p>
+ * Only the data needed for the project measures is kept - not the input files of the modules.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_PROJECT)
+public class DependencyAggregator
+{
+    private final Set<Dependency> dependencies = new HashSet<>();
+    private final Set<License> licenses = new HashSet<>();
+    private final Set<Path> moduleDirs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param moduleDir the base directory of a module - registered before the module is scanned
+     */
+    public void addModuleDir(File moduleDir)
+    {
+        if (moduleDir != null)
+        {
+            moduleDirs.add(moduleDir.toPath().toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * @return the (absolute) base directories of the modules analyzed so far - a live view, as the submodules are
+     *     analyzed before their parent module
+     */
+    public Set<Path> getModuleDirs()
+    {
+        return Collections.unmodifiableSet(moduleDirs);
+    }
+
+    /**
+     * @param moduleDependencies the validated dependencies of a module
+     * @param moduleLicenses the licenses used by the module
+     */
+    public synchronized void add(Collection<Dependency> moduleDependencies, Collection<License> moduleLicenses)
+    {
+        moduleDependencies.forEach(dependency -> dependencies.add(detach(dependency)));
+        licenses.addAll(moduleLicenses);
+    }
+
+    public synchronized Set<Dependency> getDependencies()
+    {
+        return new HashSet<>(dependencies);
+    }
+
+    public synchronized Set<License> getLicenses()
+    {
+        return new HashSet<>(licenses);
+    }
+
+    /**
+     * Forgets all collected data - called after the root module saved it.
+     */
+    public synchronized void clear()
+    {
+        dependencies.clear();
+        licenses.clear();
+        moduleDirs.clear();
+    }
+
+    private static Dependency detach(Dependency dependency)
+    {
+        Dependency detached = new Dependency(dependency.getName(), dependency.getVersion(), dependency.getLicense(),
+            dependency.getLang());
+        detached.setStatus(dependency.getStatus());
+        return detached;
+    }
+}
@@ -0,0 +1,251 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.json.JsonObject;
+import javax.json.stream.JsonGenerator;
+
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.scanner.ScannerSide;
+
+import at.porscheinformatik.sonarqube.licensecheck.utils.JsonFileCache;
+
+/**
+ * Dependencies resolved by the scanners, persisted between analyses. There is one entry per manifest (e.g. a
+ * <code>pom.xml</code>), stored with a hash of everything the result depends on - the manifest, lockfile, settings,
+ * license mappings. As long as the hash is the same the scanner takes the dependencies from here instead of resolving
+ * them again; a new hash replaces the entry of the manifest.
+ * <p>
+ * Only name, version, license and language of the dependencies are stored - the scanner sets the input component
+ * again. The cache file is read on first use. Thread-safe, one instance is shared by all scanners and modules of an
+ * analysis - the root module saves it.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_PROJECT)
+public final class DependencyCache extends JsonFileCache<DependencyCache.Entry>
+{
+    static final int MAX_ENTRIES = 5_000;
+
+    /**
+     * @param cacheFile the cache file (does not need to exist) - <code>null</code> disables the cache
+     */
+    public DependencyCache(Path cacheFile)
+    {
+        super(cacheFile, "dependency cache", "manifest", MAX_ENTRIES);
+    }
+
+    /**
+     * @param configuration the configuration of the analysis - the settings of the cache
+     */
+    public DependencyCache(Configuration configuration)
+    {
+        this(getCacheFile(configuration, LicenseCheckPropertyKeys.DEPENDENCY_CACHE,
+            LicenseCheckPropertyKeys.DEPENDENCY_CACHE_PATH, "dependencies.json"));
+    }
+
+    /**
+     * @return a cache that stores nothing
+     */
+    public static DependencyCache disabled()
+    {
+        return new DependencyCache((Path) null);
+    }
+
+    /**
+     * @return the configured cache file, by default <code>fileName</code> in the SonarQube user home - or
+     *     <code>null</code> if the cache is disabled
+     */
+    static Path getCacheFile(Configuration configuration, String enabledKey, String pathKey, String fileName)
+    {
+        if (!configuration.getBoolean(enabledKey).orElse(true))
+        {
+            return null;
+        }
+
+        Optional<String> cachePath = configuration.get(pathKey);
+        if (cachePath.isPresent())
+        {
+            return Paths.get(cachePath.get());
+        }
+
+        // the scanner working directory is cleaned before each analysis, so use the user home
+        String sonarUserHome = configuration.get("sonar.userHome")
+            .orElse(System.getProperty("user.home") + File.separator + ".sonar");
+        return Paths.get(sonarUserHome, "licensecheck", fileName);
+    }
+
+    /**
+     * @param manifest identifies the scanned manifest, e.g. <code>maven:/path/to/pom.xml</code>
+     * @param hash hash of all inputs of the scan (see {@link #newKey()})
+     * @return new copies of the dependencies or <code>null</code> if there is no entry with this hash
+     */
+    public List<Dependency> get(String manifest, String hash)
+    {
+        if (!isEnabled() || hash == null)
+        {
+            return null;
+        }
+
+        Entry entry = getEntry(manifest);
+        if (entry == null || !entry.hash.equals(hash))
+        {
+            return null;
+        }
+        markUsed(manifest);
+        return copy(entry.dependencies);
+    }
+
+    public void put(String manifest, String hash, Collection<Dependency> dependencies)
+    {
+        if (!isEnabled() || hash == null)
+        {
+            return;
+        }
+        putEntry(manifest, new Entry(hash, Collections.unmodifiableList(copy(dependencies))));
+    }
+
+    @Override
+    protected Entry readEntry(JsonObject entryJson)
+    {
+        List<Dependency> dependencies = new ArrayList<>();
+        for (JsonObject dependencyJson : entryJson.getJsonArray("dependencies").getValuesAs(JsonObject.class))
+        {
+            dependencies.add(new Dependency(dependencyJson.getString("n"), dependencyJson.getString("v", null),
+                dependencyJson.getString("l", null), dependencyJson.getString("g", null)));
+        }
+        return new Entry(entryJson.getString("hash"), Collections.unmodifiableList(dependencies));
+    }
+
+    @Override
+    protected void writeEntry(JsonGenerator generator, Entry entry)
+    {
+        generator.write("hash", entry.hash);
+        generator.writeStartArray("dependencies");
+        for (Dependency dependency : entry.dependencies)
+        {
+            generator.writeStartObject();
+            generator.write("n", dependency.getName());
+            writeIfNotNull(generator, "v", dependency.getVersion());
+            writeIfNotNull(generator, "l", dependency.getLicense());
+            writeIfNotNull(generator, "g", dependency.getLang());
+            generator.writeEnd();
+        }
+        generator.writeEnd();
+    }
+
+    /**
+     * @return a new builder for the hash of the inputs of a scan
+     */
+    public static Key newKey()
+    {
+        return new Key();
+    }
+
+    /**
+     * Copies without the input component - the scanner sets it again.
+     */
+    private static List<Dependency> copy(Collection<Dependency> dependencies)
+    {
+        List<Dependency> copies = new ArrayList<>(dependencies.size());
+        for (Dependency dependency : dependencies)
+        {
+            copies.add(new Dependency(dependency.getName(), dependency.getVersion(), dependency.getLicense(),
+                dependency.getLang()));
+        }
+        return copies;
+    }
+
+
+    /**
+     * SHA-256 over strings and file contents. Each value is terminated, so ("ab", "c") and ("a", "bc") differ.
+     */
+    public static final class Key
+    {
+        private final MessageDigest digest;
+
+        private Key()
+        {
+            try
+            {
+                digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IllegalStateException("SHA-256 not supported", e);
+            }
+        }
+
+        public Key add(String value)
+        {
+            if (value != null)
+            {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) (value != null ? 0 : 1));
+            return this;
+        }
+
+        public Key add(boolean value)
+        {
+            return add(String.valueOf(value));
+        }
+
+        /**
+         * Adds the path and the content of a file - a missing file counts as well.
+         */
+        public Key addFile(Path file) throws IOException
+        {
+            add(file.toString());
+            if (!Files.isRegularFile(file))
+            {
+                return add((String) null);
+            }
+            byte[] buffer = new byte[8192];
+            try (InputStream in = Files.newInputStream(file))
+            {
+                int read;
+                while ((read = in.read(buffer)) != -1)
+                {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return add(String.valueOf(Files.size(file)));
+        }
+
+        public String build()
+        {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+    }
+
+    static final class Entry
+    {
+        private final String hash;
+        private final List<Dependency> dependencies;
+
+        private Entry(String hash, List<Dependency> dependencies)
+        {
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerator;
+
+/**
+ * Encoding of the {@link LicenseCheckMetrics#DEPENDENCY dependency measure}. Version 2 stores one array per field
+ * instead of one object per dependency - licenses and languages as indexes into a dictionary:
+ *
+ * <pre>
+ * {"v":2,"licenses":["MIT","Apache-2.0"],"langs":["java"],
+ *  "name":["another","library"],"version":["2.1.0","1.0.0"],"license":[0,1],"lang":[0,0]}
+ * </pre>
+ *
+ * Optionally this is compressed (zlib) and Base64 encoded: <code>{"v":2,"deflate":"eJyr..."}</code>. Version 1 (see
+ * {@link Dependency#createString(Collection)}) is a plain array of dependency objects. {@link #decode(String)}
+ * reads all of them.
+ */
+public final class DependencyMeasure
+{
+    static final int VERSION = 2;
+
+    private static final String FIELD_VERSION = "v";
+    private static final String FIELD_DEFLATE = "deflate";
+    private static final String FIELD_LICENSES = "licenses";
+    private static final String FIELD_LANGS = "langs";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_VERSION_COLUMN = "version";
+    private static final String FIELD_LICENSE = "license";
+    private static final String FIELD_LANG = "lang";
+
+    private DependencyMeasure()
+    {
+    }
+
+    /**
+     * @param dependencies the dependencies
+     * @param compress deflate and Base64 encode the columns
+     * @return the measure value
+     */
+    public static String encode(Collection<Dependency> dependencies, boolean compress)
+    {
+        String columns = writeColumns(dependencies);
+        if (!compress)
+        {
+            return columns;
+        }
+
+        StringWriter jsonString = new StringWriter();
+        try (JsonGenerator generator = Json.createGenerator(jsonString))
+        {
+            generator.writeStartObject()
+                .write(FIELD_VERSION, VERSION)
+                .write(FIELD_DEFLATE, Base64.getEncoder().encodeToString(deflate(columns)))
+                .writeEnd();
+        }
+        return jsonString.toString();
+    }
+
+    /**
+     * @param value the measure value in any version
+     * @return the dependencies (name, version, license and language)
+     * @throws IllegalArgumentException if the value cannot be read
+     */
+    public static List<Dependency> decode(String value)
+    {
+        JsonStructure json = readJson(value);
+        if (json instanceof JsonArray)
+        {
+            return readObjects((JsonArray) json);
+        }
+
+        JsonObject measure = (JsonObject) json;
+        int version = measure.getInt(FIELD_VERSION, 0);
+        if (version != VERSION)
+        {
+            throw new IllegalArgumentException("Unsupported dependency measure version " + version);
+        }
+        if (measure.containsKey(FIELD_DEFLATE))
+        {
+            measure = (JsonObject) readJson(inflate(Base64.getDecoder().decode(measure.getString(FIELD_DEFLATE))));
+        }
+        return readColumns(measure);
+    }
+
+    private static String writeColumns(Collection<Dependency> dependencies)
+    {
+        // same order and placeholders as version 1
+        TreeSet<Dependency> sortedDependencies = new TreeSet<>(dependencies);
+        Map<String, Integer> licenses = new LinkedHashMap<>();
+        Map<String, Integer> langs = new LinkedHashMap<>();
+        for (Dependency dependency : sortedDependencies)
+        {
+            licenses.putIfAbsent(getLicense(dependency), licenses.size());
+            langs.putIfAbsent(dependency.getLang(), langs.size());
+        }
+
+        StringWriter jsonString = new StringWriter();
+        try (JsonGenerator generator = Json.createGenerator(jsonString))
+        {
+            generator.writeStartObject();
+            generator.write(FIELD_VERSION, VERSION);
+            generator.writeStartArray(FIELD_LICENSES);
+            licenses.keySet().forEach(generator::write);
+            generator.writeEnd();
+            generator.writeStartArray(FIELD_LANGS);
+            langs.keySet().forEach(generator::write);
+            generator.writeEnd();
+            generator.writeStartArray(FIELD_NAME);
+            sortedDependencies.forEach(d -> generator.write(d.getName()));
+            generator.writeEnd();
+            generator.writeStartArray(FIELD_VERSION_COLUMN);
+            sortedDependencies.forEach(d -> generator.write(getVersion(d)));
+            generator.writeEnd();
+            generator.writeStartArray(FIELD_LICENSE);
+            sortedDependencies.forEach(d -> generator.write(licenses.get(getLicense(d))));
+            generator.writeEnd();
+            generator.writeStartArray(FIELD_LANG);
+            sortedDependencies.forEach(d -> generator.write(langs.get(d.getLang())));
+            generator.writeEnd();
+            generator.writeEnd();
+        }
+        return jsonString.toString();
+    }
+
+    private static List<Dependency> readColumns(JsonObject measure)
+    {
+        JsonArray licenses = measure.getJsonArray(FIELD_LICENSES);
+        JsonArray langs = measure.getJsonArray(FIELD_LANGS);
+        JsonArray names = measure.getJsonArray(FIELD_NAME);
+        JsonArray versions = measure.getJsonArray(FIELD_VERSION_COLUMN);
+        JsonArray licenseIndexes = measure.getJsonArray(FIELD_LICENSE);
+        JsonArray langIndexes = measure.getJsonArray(FIELD_LANG);
+
+        List<Dependency> dependencies = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++)
+        {
+            dependencies.add(new Dependency(names.getString(i), versions.getString(i),
+                licenses.getString(licenseIndexes.getInt(i)), langs.getString(langIndexes.getInt(i))));
+        }
+        return dependencies;
+    }
+
+    private static List<Dependency> readObjects(JsonArray measure)
+    {
+        List<Dependency> dependencies = new ArrayList<>(measure.size());
+        for (JsonValue value : measure)
+        {
+            JsonObject dependency = value.asJsonObject();
+            dependencies.add(new Dependency(dependency.getString(FIELD_NAME, null),
+                dependency.getString(FIELD_VERSION_COLUMN, null), dependency.getString(FIELD_LICENSE, null),
+                dependency.getString(FIELD_LANG, null)));
+        }
+        return dependencies;
+    }
+
+    private static String getVersion(Dependency dependency)
+    {
+        return dependency.getVersion() != null ? dependency.getVersion() : "unkwown-version";
+    }
+
+    private static String getLicense(Dependency dependency)
+    {
+        return dependency.getLicense() != null ? dependency.getLicense() : " ";
+    }
+
+    private static JsonStructure readJson(String value)
+    {
+        try (JsonReader jsonReader = Json.createReader(new StringReader(value)))
+        {
+            return jsonReader.read();
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid dependency measure", e);
+        }
+    }
+
+    private static byte[] deflate(String value)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try
+        {
+            deflater.setInput(value.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+            {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] value)
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(value);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished())
+            {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new IllegalArgumentException("Truncated dependency measure");
+                }
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+        catch (DataFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid dependency measure", e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+}
@@ -12,7 +12,7 @@ import static java.lang.Boolean.TRUE;
 public class LicenseCheckMetrics implements Metrics
 {
     public static final String LICENSE_CHECK_DEPENDENCY_KEY = "licensecheck.dependency";
-    private static final String LICENSE_CHECK_LICENSE_KEY = "licensecheck.license";
+    public static final String LICENSE_CHECK_LICENSE_KEY = "licensecheck.license";
 
     public static final Metric<String> DEPENDENCY =
         new Metric.Builder(LICENSE_CHECK_DEPENDENCY_KEY, "License Check - Dependencies", Metric.ValueType.DATA)
@@ -60,10 +60,69 @@ public class LicenseCheckMetrics implements Metrics
             .setDomain("Dependencies")
             .create();
 
+    /*
+     * Hidden metrics with the timings and counters of the last analysis (see AnalysisStatistics), to spot slow
+     * analyses and follow their history via api/measures.
+     */
+
+    public static final Metric<String> TIMING =
+        new Metric.Builder("licensecheck.timing", "License Check - Timing", Metric.ValueType.DATA)
+            .setDescription("Time spent in each phase of the license check and counters (JSON)")
+            .setDomain(CoreMetrics.DOMAIN_GENERAL)
+            .setHidden(true)
+            .create();
+
+    public static final Metric<Long> TIME_TOTAL = timeMetric("licensecheck.time_total", "Total Time",
+        "Time spent in the license check sensor");
+    public static final Metric<Long> TIME_SCAN = timeMetric("licensecheck.time_scan", "Scan Time",
+        "Time spent running the dependency scanners");
+    public static final Metric<Long> TIME_MAVEN = timeMetric("licensecheck.time_maven", "Maven Time",
+        "Time spent in Maven invocations");
+    public static final Metric<Long> TIME_POM_PARSING = timeMetric("licensecheck.time_pom_parsing",
+        "POM Parsing Time", "Time spent parsing POMs (all threads)");
+    public static final Metric<Long> TIME_LICENSE_MAPPING = timeMetric("licensecheck.time_license_mapping",
+        "License Mapping Time", "Time spent mapping license names (all threads)");
+    public static final Metric<Long> TIME_VALIDATION = timeMetric("licensecheck.time_validation",
+        "Validation Time", "Time spent validating the licenses");
+    public static final Metric<Long> TIME_MEASURES = timeMetric("licensecheck.time_measures", "Measures Time",
+        "Time spent serializing and saving the measures");
+
+    public static final Metric<Integer> FILES_READ = counterMetric("licensecheck.files_read", "Files Read",
+        "Number of dependency files, reports and POMs read");
+    public static final Metric<Integer> POMS_PARSED = counterMetric("licensecheck.poms_parsed", "POMs Parsed",
+        "Number of POMs parsed");
+    public static final Metric<Integer> POM_CACHE_HITS = counterMetric("licensecheck.pom_cache_hits",
+        "POM Cache Hits", "Number of POM licenses found in the cache");
+    public static final Metric<Integer> PROCESSES_FORKED = counterMetric("licensecheck.processes_forked",
+        "Processes Forked", "Number of Maven processes started");
+    public static final Metric<Integer> DEPENDENCY_CACHE_HITS = counterMetric("licensecheck.dependency_cache_hits",
+        "Dependency Cache Hits", "Number of manifests whose dependencies were taken from the previous analysis");
+
+    private static Metric<Long> timeMetric(String key, String name, String description)
+    {
+        return new Metric.Builder(key, "License Check - " + name, Metric.ValueType.MILLISEC)
+            .setDescription(description)
+            .setDirection(Metric.DIRECTION_WORST)
+            .setDomain(CoreMetrics.DOMAIN_GENERAL)
+            .setHidden(true)
+            .create();
+    }
+
+    private static Metric<Integer> counterMetric(String key, String name, String description)
+    {
+        return new Metric.Builder(key, "License Check - " + name, Metric.ValueType.INT)
+            .setDescription(description)
+            .setDomain(CoreMetrics.DOMAIN_GENERAL)
+            .setHidden(true)
+            .create();
+    }
+
     @Override
     public List<Metric> getMetrics()
     {
         return Arrays.asList(DEPENDENCY, LICENSE, NO_DEPENDENCIES, NO_LICENSES, NO_LICENSES_FORBIDDEN,
-            NO_DEPENDENCIES_WITH_FORBIDDEN_LICENSE, NO_DEPENDENCIES_WITH_UNKNOWN_LICENSE);
+            NO_DEPENDENCIES_WITH_FORBIDDEN_LICENSE, NO_DEPENDENCIES_WITH_UNKNOWN_LICENSE, TIMING, TIME_TOTAL,
+            TIME_SCAN, TIME_MAVEN, TIME_POM_PARSING, TIME_LICENSE_MAPPING, TIME_VALIDATION, TIME_MEASURES,
+            FILES_READ, POMS_PARSED, POM_CACHE_HITS, PROCESSES_FORKED, DEPENDENCY_CACHE_HITS);
     }
 }
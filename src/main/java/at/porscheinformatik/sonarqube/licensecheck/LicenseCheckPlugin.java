@@ -35,7 +35,11 @@ public class LicenseCheckPlugin implements Plugin
     {
         return Arrays.asList(
             ValidateLicenses.class,
+            LicensePolicyLoader.class,
             LicenseCheckSensor.class,
+            DependencyAggregator.class,
+            AnalysisStatistics.class,
+            DependencyCache.class,
             LicenseCheckMetrics.class,
             LicenseCheckPageDefinition.class,
             LicenseCheckRulesDefinition.class,
@@ -146,6 +150,65 @@ public class LicenseCheckPlugin implements Plugin
                 .description("Scan transitive dependencies for NPM packages")
                 .type(PropertyType.BOOLEAN)
                 .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.NPM_USE_LOCKFILE)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("NPM Lockfile")
+                .description("Read NPM dependencies (version and license) from package-lock.json instead of "
+                    + "node_modules - no npm install needed before the analysis (requires lockfileVersion 2 or 3)")
+                .type(PropertyType.BOOLEAN)
+                .defaultValue("false")
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.MAVEN_PARALLELISM)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Maven Parallelism")
+                .description("Number of Maven dependency resolutions (one per POM) running at the same time")
+                .type(PropertyType.INTEGER)
+                .defaultValue("1")
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.MAVEN_REACTOR)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Maven Reactor Mode")
+                .description("Resolve all Maven modules with one invocation of the root POM instead of one per POM")
+                .type(PropertyType.BOOLEAN)
+                .defaultValue("false")
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.MAVEN_LICENSE_CACHE)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Maven License Cache")
+                .description("Keep the licenses read from Maven POMs (release versions only) between analyses")
+                .type(PropertyType.BOOLEAN)
+                .defaultValue("true")
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.MAVEN_LICENSE_CACHE_PATH)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Maven License Cache File")
+                .description("File of the Maven license cache (default: licensecheck/pom-licenses.json in the "
+                    + "SonarQube user home)")
+                .type(PropertyType.STRING)
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.DEPENDENCY_CACHE)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Dependency Cache")
+                .description("Reuse the dependencies of unchanged Maven POMs, NPM lockfiles and Gradle, Swift and Pub "
+                    + "license reports from previous analyses instead of resolving them again")
+                .type(PropertyType.BOOLEAN)
+                .defaultValue("true")
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.DEPENDENCY_CACHE_PATH)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Dependency Cache File")
+                .description("File of the dependency cache (default: licensecheck/dependencies.json in the "
+                    + "SonarQube user home)")
+                .type(PropertyType.STRING)
+                .build(),
+            PropertyDefinition.builder(LicenseCheckPropertyKeys.DEPENDENCY_MEASURE_COMPRESS)
+                .category(LicenseCheckPropertyKeys.CATEGORY)
+                .name("Compress Dependency List")
+                .description("Store the list of dependencies compressed - recommended for projects with thousands "
+                    + "of dependencies")
+                .type(PropertyType.BOOLEAN)
+                .defaultValue("false")
+                .build(),
             PropertyDefinition.builder(LicenseCheckPropertyKeys.ACTIVATION_KEY)
                 .category(LicenseCheckPropertyKeys.CATEGORY)
                 .name("Activate")
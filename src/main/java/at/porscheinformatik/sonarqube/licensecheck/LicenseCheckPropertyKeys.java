@@ -37,6 +37,46 @@ public class LicenseCheckPropertyKeys
      */
     public static final String NPM_RESOLVE_TRANSITIVE_DEPS = "licensecheck.npm.resolvetransitive";
 
+    /**
+     * Config key to read NPM dependencies from package-lock.json instead of node_modules
+     */
+    public static final String NPM_USE_LOCKFILE = "licensecheck.npm.lockfile";
+
+    /**
+     * Config key for the number of Maven invocations running at the same time
+     */
+    public static final String MAVEN_PARALLELISM = "licensecheck.maven.parallelism";
+
+    /**
+     * Config key to resolve all Maven modules with one recursive invocation of the root POM
+     */
+    public static final String MAVEN_REACTOR = "licensecheck.maven.reactor";
+
+    /**
+     * Config key to enable/disable the persistent cache of licenses read from Maven POMs
+     */
+    public static final String MAVEN_LICENSE_CACHE = "licensecheck.maven.cache";
+
+    /**
+     * Config key for the file of the persistent Maven license cache
+     */
+    public static final String MAVEN_LICENSE_CACHE_PATH = "licensecheck.maven.cache.path";
+
+    /**
+     * Config key to enable/disable reusing the dependencies of unchanged manifests from previous analyses
+     */
+    public static final String DEPENDENCY_CACHE = "licensecheck.dependency.cache";
+
+    /**
+     * Config key for the file of the persistent dependency cache
+     */
+    public static final String DEPENDENCY_CACHE_PATH = "licensecheck.dependency.cache.path";
+
+    /**
+     * Config key to compress the dependency measure
+     */
+    public static final String DEPENDENCY_MEASURE_COMPRESS = "licensecheck.dependency.compress";
+
     /**
      * @deprecated replaced with {@link #LICENSE_SET}
      */
@@ -4,11 +4,24 @@ import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefin
 import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition.RULE_REPO_KEY_GROOVY;
 import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import at.porscheinformatik.sonarqube.licensecheck.gradle.GradleDependencyScanner;
+import at.porscheinformatik.sonarqube.licensecheck.jfr.ScanEvent;
 import at.porscheinformatik.sonarqube.licensecheck.swift.SwiftDependencyScanner;
 import at.porscheinformatik.sonarqube.licensecheck.flutter.PubDependencyScanner;
 
@@ -18,6 +31,7 @@ import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.config.Configuration;
+import org.sonar.api.measures.Metric;
 import org.sonar.api.scanner.fs.InputProject;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -30,28 +44,44 @@ import at.porscheinformatik.sonarqube.licensecheck.npm.PackageJsonDependencyScan
 public class LicenseCheckSensor implements Sensor
 {
     private static final Logger LOGGER = Loggers.get(LicenseCheckSensor.class);
-    private static final Set<License> AGGREGATED_LICENSES = ConcurrentHashMap.newKeySet();
-    private static final Set<Dependency> AGGREGATED_DEPENDENCIES = ConcurrentHashMap.newKeySet();
+    static final String TIMING_REPORT = "licensecheck-timing.json";
     private final Configuration configuration;
     private final ValidateLicenses validateLicenses;
+    private final LicenseMappingService licenseMappingService;
+    private final DependencyAggregator dependencyAggregator;
+    private final AnalysisStatistics statistics;
+    private final DependencyCache dependencyCache;
     private final Scanner[] scanners;
 
     public LicenseCheckSensor(FileSystem fs, Configuration configuration, ValidateLicenses validateLicenses,
-        LicenseMappingService licenseMappingService)
+        LicenseMappingService licenseMappingService, DependencyAggregator dependencyAggregator,
+        AnalysisStatistics statistics, DependencyCache dependencyCache)
     {
         this.configuration = configuration;
         this.validateLicenses = validateLicenses;
+        this.licenseMappingService = licenseMappingService;
+        this.dependencyAggregator = dependencyAggregator;
+        this.statistics = statistics;
+        this.dependencyCache = dependencyCache;
         this.scanners = new Scanner[]{
             new PackageJsonDependencyScanner(licenseMappingService,
-                configuration.getBoolean(LicenseCheckPropertyKeys.NPM_RESOLVE_TRANSITIVE_DEPS).orElse(false)),
-            new MavenDependencyScanner(licenseMappingService),
-            new GradleDependencyScanner(licenseMappingService),
-            new SwiftDependencyScanner(licenseMappingService),
-            new PubDependencyScanner(licenseMappingService)
+                configuration.getBoolean(LicenseCheckPropertyKeys.NPM_RESOLVE_TRANSITIVE_DEPS).orElse(false),
+                configuration.getBoolean(LicenseCheckPropertyKeys.NPM_USE_LOCKFILE).orElse(false), statistics,
+                dependencyCache),
+            new MavenDependencyScanner(licenseMappingService,
+                configuration.getInt(LicenseCheckPropertyKeys.MAVEN_PARALLELISM).orElse(1),
+                configuration.getBoolean(LicenseCheckPropertyKeys.MAVEN_REACTOR).orElse(false),
+                DependencyCache.getCacheFile(configuration, LicenseCheckPropertyKeys.MAVEN_LICENSE_CACHE,
+                    LicenseCheckPropertyKeys.MAVEN_LICENSE_CACHE_PATH, "pom-licenses.json"),
+                statistics, dependencyCache),
+            new GradleDependencyScanner(licenseMappingService, statistics, dependencyAggregator.getModuleDirs(),
+                dependencyCache),
+            new SwiftDependencyScanner(licenseMappingService, statistics, dependencyCache),
+            new PubDependencyScanner(licenseMappingService, statistics, dependencyCache)
         };
     }
 
-    private static void saveDependencies(SensorContext sensorContext, Set<Dependency> dependencies)
+    private void saveDependencies(SensorContext sensorContext, Set<Dependency> dependencies)
     {
         LOGGER.debug("Saving dependencies for module {}: {}", sensorContext.project(), dependencies);
 
@@ -59,7 +89,8 @@ public class LicenseCheckSensor implements Sensor
         {
             sensorContext.<String>newMeasure()
                 .forMetric(LicenseCheckMetrics.DEPENDENCY)
-                .withValue(Dependency.createString(dependencies))
+                .withValue(DependencyMeasure.encode(dependencies,
+                    configuration.getBoolean(LicenseCheckPropertyKeys.DEPENDENCY_MEASURE_COMPRESS).orElse(false)))
                 .on(sensorContext.project())
                 .save();
         }
@@ -115,6 +146,138 @@ public class LicenseCheckSensor implements Sensor
             .save();
     }
 
+    /**
+     * Saves the timings and counters collected since the start of the analysis and writes them to
+     * <code>licensecheck-timing.json</code> in the scanner working directory.
+     */
+    private void saveStatistics(SensorContext sensorContext, int dependencyCount)
+    {
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_TOTAL, AnalysisStatistics.Phase.TOTAL);
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_SCAN, AnalysisStatistics.Phase.SCAN);
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_MAVEN, AnalysisStatistics.Phase.MAVEN_INVOCATION);
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_POM_PARSING, AnalysisStatistics.Phase.POM_PARSING);
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_LICENSE_MAPPING, AnalysisStatistics.Phase.LICENSE_MAPPING);
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_VALIDATION, AnalysisStatistics.Phase.VALIDATION);
+        saveTime(sensorContext, LicenseCheckMetrics.TIME_MEASURES, AnalysisStatistics.Phase.MEASURES);
+        saveCounter(sensorContext, LicenseCheckMetrics.FILES_READ, AnalysisStatistics.Counter.FILES_READ);
+        saveCounter(sensorContext, LicenseCheckMetrics.POMS_PARSED, AnalysisStatistics.Counter.POMS_PARSED);
+        saveCounter(sensorContext, LicenseCheckMetrics.POM_CACHE_HITS, AnalysisStatistics.Counter.POM_CACHE_HITS);
+        saveCounter(sensorContext, LicenseCheckMetrics.PROCESSES_FORKED,
+            AnalysisStatistics.Counter.PROCESSES_FORKED);
+        saveCounter(sensorContext, LicenseCheckMetrics.DEPENDENCY_CACHE_HITS,
+            AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS);
+
+        String report = statistics.toJson(sensorContext.project().key(), dependencyCount);
+        sensorContext.<String>newMeasure()
+            .forMetric(LicenseCheckMetrics.TIMING)
+            .withValue(report)
+            .on(sensorContext.project())
+            .save();
+
+        FileSystem fs = sensorContext.fileSystem();
+        File workDir = fs != null ? fs.workDir() : null;
+        if (workDir == null)
+        {
+            return;
+        }
+        Path reportFile = workDir.toPath().resolve(TIMING_REPORT);
+        try
+        {
+            Files.createDirectories(workDir.toPath());
+            Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+            LOGGER.info("License check timing report written to {}", reportFile);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Could not write timing report {}: {}", reportFile, e.getMessage());
+        }
+    }
+
+    private void saveTime(SensorContext sensorContext, Metric<Long> metric, AnalysisStatistics.Phase phase)
+    {
+        sensorContext.<Long>newMeasure()
+            .forMetric(metric)
+            .withValue(statistics.getMillis(phase))
+            .on(sensorContext.project())
+            .save();
+    }
+
+    private void saveCounter(SensorContext sensorContext, Metric<Integer> metric, AnalysisStatistics.Counter counter)
+    {
+        sensorContext.<Integer>newMeasure()
+            .forMetric(metric)
+            .withValue((int) statistics.get(counter))
+            .on(sensorContext.project())
+            .save();
+    }
+
+    /**
+     * Runs all scanners concurrently - they mostly wait for external processes or the disk.
+     */
+    private Set<Dependency> scan(SensorContext context)
+    {
+        Set<Dependency> dependencies = new TreeSet<>();
+
+        if (scanners.length == 1)
+        {
+            dependencies.addAll(timedScan(scanners[0], context));
+            return dependencies;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(scanners.length);
+        try
+        {
+            List<Future<Set<Dependency>>> results = Arrays.stream(scanners)
+                .map(scanner -> executor.submit(() -> timedScan(scanner, context)))
+                .collect(Collectors.toList());
+
+            for (Future<Set<Dependency>> result : results)
+            {
+                dependencies.addAll(result.get());
+            }
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not scan dependencies", e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning dependencies", e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return dependencies;
+    }
+
+    private Set<Dependency> timedScan(Scanner scanner, SensorContext context)
+    {
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Set<Dependency> dependencies = scanner.scan(context);
+        long nanos = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.setScanner(scanner.getClass().getSimpleName());
+            event.setModule(context.module().key());
+            event.setDependencyCount(dependencies.size());
+            event.commit();
+        }
+        statistics.addScannerTime(scanner.getClass().getSimpleName(), nanos);
+        LOGGER.info("{} found {} dependencies in {} ms", scanner.getClass().getSimpleName(), dependencies.size(),
+            TimeUnit.NANOSECONDS.toMillis(nanos));
+        return dependencies;
+    }
+
     @Override
     public void describe(SensorDescriptor descriptor)
     {
@@ -130,27 +293,52 @@ public class LicenseCheckSensor implements Sensor
             LOGGER.info("Scanner is set to inactive. No scan possible.");
             return;
         }
+        long start = System.nanoTime();
 
-        Set<Dependency> dependencies = new TreeSet<>();
-
-        for (Scanner scanner : scanners)
+        FileSystem fs = context.fileSystem();
+        if (fs != null)
         {
-            dependencies.addAll(scanner.scan(context));
+            dependencyAggregator.addModuleDir(fs.baseDir());
         }
+        long mappingNanos = licenseMappingService.getMappingNanos();
+        Set<Dependency> dependencies = scan(context);
+        statistics.addTime(AnalysisStatistics.Phase.SCAN, System.nanoTime() - start);
+        // the mapping is shared by all modules of the analysis
+        statistics.addTime(AnalysisStatistics.Phase.LICENSE_MAPPING,
+            Math.max(0, licenseMappingService.getMappingNanos() - mappingNanos));
+        licenseMappingService.logStatistics();
+
+        long validationStart = System.nanoTime();
         InputProject project = context.project();
         Set<Dependency> validatedDependencies = validateLicenses.validateLicenses(dependencies, context);
 
         Set<License> usedLicenses = validateLicenses.getUsedLicenses(validatedDependencies, project);
+        statistics.addTime(AnalysisStatistics.Phase.VALIDATION, System.nanoTime() - validationStart);
 
-        AGGREGATED_LICENSES.addAll(usedLicenses);
-        AGGREGATED_DEPENDENCIES.addAll(validatedDependencies);
+        dependencyAggregator.add(validatedDependencies, usedLicenses);
 
-        // root module?
+        // root module? (scanned after all other modules)
         if (context.project().key().equals(context.module().key()))
         {
-            saveDependencies(context, AGGREGATED_DEPENDENCIES);
-            saveLicenses(context, AGGREGATED_LICENSES);
-            saveMeasures(context, AGGREGATED_LICENSES, AGGREGATED_DEPENDENCIES);
+            Set<Dependency> aggregatedDependencies = dependencyAggregator.getDependencies();
+            Set<License> aggregatedLicenses = dependencyAggregator.getLicenses();
+
+            long measuresStart = System.nanoTime();
+            saveDependencies(context, aggregatedDependencies);
+            saveLicenses(context, aggregatedLicenses);
+            saveMeasures(context, aggregatedLicenses, aggregatedDependencies);
+            statistics.addTime(AnalysisStatistics.Phase.MEASURES, System.nanoTime() - measuresStart);
+            statistics.addTime(AnalysisStatistics.Phase.TOTAL, System.nanoTime() - start);
+
+            saveStatistics(context, aggregatedDependencies.size());
+            // the cache is shared by all modules, so it is written once at the end of the analysis
+            dependencyCache.save();
+            dependencyAggregator.clear();
+            statistics.clear();
+        }
+        else
+        {
+            statistics.addTime(AnalysisStatistics.Phase.TOTAL, System.nanoTime() - start);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMapping;
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMatcher;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+import at.porscheinformatik.sonarqube.licensecheck.license.LicenseCatalog;
+import at.porscheinformatik.sonarqube.licensecheck.license.SpdxExpression;
+import at.porscheinformatik.sonarqube.licensecheck.license.SpdxExpressionParser;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
+import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicense;
+
+/**
+ * Snapshot of the license settings for one analysis: the licenses, the project specific licenses, the license mappings
+ * and the dependency mappings - read once and prepared for lookups. The settings are not read again while the
+ * analysis is running, so all modules are checked against the same policy.
+ * <p>
+ * License expressions are parsed once per policy, as most dependencies share a few license strings.
+ */
+public final class LicensePolicy
+{
+    static final int MAX_LICENSE_EXPRESSIONS = 10_000;
+    private static final String NO_PROJECT = "";
+
+    private final List<License> licenses;
+    private final Map<String, Map<String, Boolean>> projectLicenses;
+    private final LicenseMatcher licenseMatcher;
+    private final DependencyMatcher dependencyMatcher;
+    private final Map<String, LicenseCatalog> licenseCatalogs = new ConcurrentHashMap<>();
+    private final Map<String, SpdxExpression> licenseExpressions = new ConcurrentHashMap<>();
+
+    private LicensePolicy(List<License> licenses, Map<String, Map<String, Boolean>> projectLicenses,
+        LicenseMatcher licenseMatcher, DependencyMatcher dependencyMatcher)
+    {
+        this.licenses = licenses;
+        this.projectLicenses = projectLicenses;
+        this.licenseMatcher = licenseMatcher;
+        this.dependencyMatcher = dependencyMatcher;
+    }
+
+    /**
+     * @param licenses the global licenses
+     * @param projectLicenses the project specific license settings of all projects
+     * @param licenseMatcher the compiled license mappings
+     * @param dependencyMappings the dependency mappings in configured order
+     * @return the policy
+     */
+    public static LicensePolicy of(List<License> licenses, List<ProjectLicense> projectLicenses,
+        LicenseMatcher licenseMatcher, List<DependencyMapping> dependencyMappings)
+    {
+        List<License> licenseCopies = new ArrayList<>(licenses.size());
+        licenses.forEach(license -> licenseCopies.add(copy(license, license.getAllowed())));
+
+        Map<String, Map<String, Boolean>> allowedByProject = new HashMap<>();
+        for (ProjectLicense projectLicense : projectLicenses)
+        {
+            if (projectLicense.getProjectKey() != null)
+            {
+                allowedByProject.computeIfAbsent(projectLicense.getProjectKey(), key -> new HashMap<>())
+                    .put(projectLicense.getLicense(), projectLicense.getAllowed());
+            }
+        }
+
+        return new LicensePolicy(Collections.unmodifiableList(licenseCopies), allowedByProject, licenseMatcher,
+            DependencyMatcher.of(dependencyMappings));
+    }
+
+    /**
+     * @return the global licenses (without project specific settings)
+     */
+    public List<License> getLicenses()
+    {
+        return licenses;
+    }
+
+    /**
+     * @param projectKey the project key or <code>null</code> for the global licenses
+     * @return the licenses with the project specific settings applied - the catalog is built once per project
+     */
+    public LicenseCatalog getLicenseCatalog(String projectKey)
+    {
+        return licenseCatalogs.computeIfAbsent(projectKey != null ? projectKey : NO_PROJECT,
+            key -> LicenseCatalog.of(applyProjectLicenses(projectLicenses.get(key))));
+    }
+
+    /**
+     * @param license the license of a dependency (not blank)
+     * @return the parsed SPDX expression - cached up to {@value #MAX_LICENSE_EXPRESSIONS} distinct licenses
+     */
+    public SpdxExpression getLicenseExpression(String license)
+    {
+        SpdxExpression expression = licenseExpressions.get(license);
+        if (expression == null)
+        {
+            expression = SpdxExpressionParser.parse(license);
+            if (licenseExpressions.size() < MAX_LICENSE_EXPRESSIONS)
+            {
+                licenseExpressions.put(license, expression);
+            }
+        }
+        return expression;
+    }
+
+    public LicenseMatcher getLicenseMatcher()
+    {
+        return licenseMatcher;
+    }
+
+    public DependencyMatcher getDependencyMatcher()
+    {
+        return dependencyMatcher;
+    }
+
+    private List<License> applyProjectLicenses(Map<String, Boolean> allowedByLicense)
+    {
+        if (allowedByLicense == null)
+        {
+            return licenses;
+        }
+
+        // copies, so the catalogs of different projects do not share changed licenses
+        List<License> projectSpecific = new ArrayList<>(licenses.size());
+        for (License license : licenses)
+        {
+            Boolean allowed = allowedByLicense.get(license.getIdentifier());
+            projectSpecific.add(allowed != null ? copy(license, allowed) : license);
+        }
+        return projectSpecific;
+    }
+
+    private static License copy(License license, Boolean allowed)
+    {
+        return new License(license.getName(), license.getIdentifier(), allowed);
+    }
+}
@@ -0,0 +1,50 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.scanner.ScannerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.license.LicenseService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicenseService;
+
+/**
+ * Reads the {@link LicensePolicy} on first use - there is one instance per analysis.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_PROJECT)
+public class LicensePolicyLoader
+{
+    private static final Logger LOGGER = Loggers.get(LicensePolicyLoader.class);
+
+    private final LicenseService licenseService;
+    private final ProjectLicenseService projectLicenseService;
+    private final LicenseMappingService licenseMappingService;
+    private final DependencyMappingService dependencyMappingService;
+
+    private LicensePolicy licensePolicy;
+
+    public LicensePolicyLoader(LicenseService licenseService, ProjectLicenseService projectLicenseService,
+        LicenseMappingService licenseMappingService, DependencyMappingService dependencyMappingService)
+    {
+        this.licenseService = licenseService;
+        this.projectLicenseService = projectLicenseService;
+        this.licenseMappingService = licenseMappingService;
+        this.dependencyMappingService = dependencyMappingService;
+    }
+
+    public synchronized LicensePolicy get()
+    {
+        if (licensePolicy == null)
+        {
+            // the scanners use the same license matcher via LicenseMappingService
+            licensePolicy = LicensePolicy.of(licenseService.getLicenses(),
+                projectLicenseService.getProjectLicenseList(), licenseMappingService.getLicenseMatcher(),
+                dependencyMappingService.getDependencyMappings());
+            LOGGER.debug("License policy with {} licenses loaded", licensePolicy.getLicenses().size());
+        }
+        return licensePolicy;
+    }
+}
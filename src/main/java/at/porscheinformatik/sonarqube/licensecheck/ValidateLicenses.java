@@ -1,9 +1,8 @@
 package at.porscheinformatik.sonarqube.licensecheck;
 
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 import org.codehaus.plexus.util.StringUtils;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -15,113 +14,82 @@ import org.sonar.api.scanner.fs.InputProject;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
-import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMapping;
-import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMatcher;
 import at.porscheinformatik.sonarqube.licensecheck.license.License;
-import at.porscheinformatik.sonarqube.licensecheck.license.LicenseService;
+import at.porscheinformatik.sonarqube.licensecheck.license.LicenseCatalog;
+import at.porscheinformatik.sonarqube.licensecheck.jfr.ValidationEvent;
 
 @ScannerSide
 public class ValidateLicenses
 {
     private static final Logger LOGGER = Loggers.get(ValidateLicenses.class);
 
-    private final LicenseService licenseService;
-    private final DependencyMappingService dependencyMappingService;
+    private final LicensePolicyLoader licensePolicyLoader;
 
-    public ValidateLicenses(LicenseService licenseService, DependencyMappingService dependencyMappingService)
+    public ValidateLicenses(LicensePolicyLoader licensePolicyLoader)
     {
         super();
-        this.licenseService = licenseService;
-        this.dependencyMappingService = dependencyMappingService;
+        this.licensePolicyLoader = licensePolicyLoader;
     }
 
     public Set<Dependency> validateLicenses(Set<Dependency> dependencies, SensorContext context)
     {
-        List<License> licenses = licenseService.getLicenses(context.project());
-        List<DependencyMapping> dependencyMappings = dependencyMappingService.getDependencyMappings();
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        LicensePolicy licensePolicy = licensePolicyLoader.get();
+        LicenseCatalog licenseCatalog = licensePolicy.getLicenseCatalog(getProjectKey(context.project()));
+        DependencyMatcher dependencyMatcher = licensePolicy.getDependencyMatcher();
 
+        int unknownCount = 0;
         for (Dependency dependency : dependencies)
         {
-            License license = findLicense(licenses, dependency);
-            if (license == null)
-            {
-                mapDependencyToLicense(dependencyMappings, dependency);
-            }
-
-            overrideLicenseForDependency(dependencyMappings, dependency);
+            dependency.setLicense(dependencyMatcher.getLicense(dependency.getName(), dependency.getLicense()));
 
-            if (!isLicensesValid(context, licenses, dependency))
+            if (!isLicensesValid(context, licensePolicy, licenseCatalog, dependency))
             {
                 dependency.setStatus(Dependency.Status.Unknown);
+                unknownCount++;
             }
             else
             {
                 dependency.setStatus(Dependency.Status.Allowed);
             }
         }
+
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.setProject(getProjectKey(context.project()));
+            event.setDependencyCount(dependencies.size());
+            event.setUnknownCount(unknownCount);
+            event.commit();
+        }
         return dependencies;
     }
 
     public Set<License> getUsedLicenses(Set<Dependency> dependencies, InputProject project)
     {
-        List<License> licenses = licenseService.getLicenses(project);
+        LicenseCatalog licenseCatalog = licensePolicyLoader.get().getLicenseCatalog(getProjectKey(project));
         Set<License> usedLicenseList = new TreeSet<>();
 
         for (Dependency dependency : dependencies)
         {
-            if (licenses != null && !licenses.isEmpty()) {
-                for (License license : licenses)
-                {
-                    if (license.getIdentifier().equals(dependency.getLicense()))
-                    {
-                        usedLicenseList.add(license);
-                    }
-                }
-    
-            }
-        }
-        return usedLicenseList;
-    }
-
-    private License findLicense(List<License> licenses, Dependency dependency)
-    {
-        for (License license : licenses)
-        {
-            if (license.getIdentifier().equals(dependency.getLicense()))
+            License license = licenseCatalog.get(dependency.getLicense());
+            if (license != null)
             {
-                return license;
+                usedLicenseList.add(license);
             }
         }
-        return null;
-    }
-
-    private static void mapDependencyToLicense(List<DependencyMapping> dependencyMappings, Dependency dependency)
-    {
-        dependencyMappings.forEach(dependencyMapping ->
-        {
-            if (StringUtils.isBlank(dependency.getLicense()))
-            {
-                String matchString = dependencyMapping.getKey();
-                if (dependency.getName().matches(matchString))
-                {
-                    dependency.setLicense(dependencyMapping.getLicense());
-                }
-            }
-        });
+        return usedLicenseList;
     }
 
-    private static void overrideLicenseForDependency(List<DependencyMapping> dependencyMappings, Dependency dependency)
+    private static String getProjectKey(InputProject project)
     {
-        dependencyMappings.stream().filter(DependencyMapping::getOverwrite).forEach(dependencyMapping -> {
-            String matchString = dependencyMapping.getKey();
-            if (dependency.getName().matches(matchString))
-            {
-                dependency.setLicense(dependencyMapping.getLicense());
-            }
-        });
+        return project != null ? project.key() : null;
     }
 
-    private static boolean isLicensesValid(SensorContext context, List<License> licenses, Dependency dependency)
+    private static boolean isLicensesValid(SensorContext context, LicensePolicy licensePolicy,
+        LicenseCatalog licenseCatalog, Dependency dependency)
     {
         if (StringUtils.isBlank(dependency.getLicense()))
         {
@@ -129,18 +97,27 @@ public class ValidateLicenses
             return false;
         }
 
-        if (checkSpdxLicense(dependency.getLicense(), licenses))
+        Set<License> forbiddenLicenses = new LinkedHashSet<>();
+        Dependency.Status status;
+
+        // most dependencies use a single license of the catalog
+        License license = licenseCatalog.get(dependency.getLicense());
+        if (license != null)
         {
-            return true;
+            status = license.getAllowed() ? Dependency.Status.Allowed : Dependency.Status.Forbidden;
+            forbiddenLicenses.add(license);
+        }
+        else
+        {
+            status = licensePolicy.getLicenseExpression(dependency.getLicense())
+                .evaluate(licenseCatalog, forbiddenLicenses);
         }
 
-        List<License> licensesContainingDependency = licenses.stream()
-            .filter(l -> dependency.getLicense().contains(l.getIdentifier()))
-            .collect(Collectors.toList());
-
-        String[] andLicenses = dependency.getLicense().replace("(", "").replace(")", "").split(" AND ");
-
-        if (licensesContainingDependency.size() != andLicenses.length)
+        if (status == Dependency.Status.Allowed)
+        {
+            return true;
+        }
+        else if (status == Dependency.Status.Unknown)
         {
             licenseNotFoundIssue(context, dependency);
         }
@@ -148,12 +125,9 @@ public class ValidateLicenses
         {
             StringBuilder notAllowedLicense = new StringBuilder();
 
-            for (License element : licensesContainingDependency)
+            for (License element : forbiddenLicenses)
             {
-                if (!element.getAllowed())
-                {
-                    notAllowedLicense.append(element.getName()).append(" ");
-                }
+                notAllowedLicense.append(element.getName()).append(" ");
             }
             licenseNotAllowedIssue(context, dependency, notAllowedLicense.toString());
         }
@@ -161,58 +135,6 @@ public class ValidateLicenses
         return false;
     }
 
-    private static boolean checkSpdxLicense(String spdxLicenseString, List<License> licenses)
-    {
-        if (spdxLicenseString.contains(" OR "))
-        {
-            return checkSpdxLicenseWithOr(spdxLicenseString, licenses);
-        }
-
-        else if (spdxLicenseString.contains(" AND "))
-        {
-            return checkSpdxLicenseWithAnd(spdxLicenseString, licenses);
-        }
-
-        return licenses
-            .stream()
-            .filter(l -> l.getIdentifier().equals(spdxLicenseString))
-            .anyMatch(License::getAllowed);
-    }
-
-    private static boolean checkSpdxLicenseWithOr(String spdxLicenseString, List<License> licenses)
-    {
-        String[] orLicenses = spdxLicenseString.replace("(", "").replace(")", "").split(" OR ");
-        return licenses
-            .stream()
-            .filter(l -> ValidateLicenses.contains(orLicenses, l.getIdentifier()))
-            .anyMatch(License::getAllowed);
-    }
-
-    private static boolean checkSpdxLicenseWithAnd(String spdxLicenseString, List<License> licenses)
-    {
-        String[] andLicenses = spdxLicenseString.replace("(", "").replace(")", "").split(" AND ");
-        long count = andLicenses.length;
-        List<License> foundLicenses =
-            licenses.stream()
-                .filter(l -> ValidateLicenses.contains(andLicenses, l.getIdentifier()))
-                .collect(Collectors.toList());
-        long allowedLicenseCount = foundLicenses.stream().filter(License::getAllowed).count();
-        if (count == allowedLicenseCount)
-        {
-            return true;
-        }
-        else if (foundLicenses.size() == count)
-        {
-            // NOT ALLOWED
-            return false;
-        }
-        else
-        {
-            // NOT FOUND
-            return false;
-        }
-    }
-
     private static void licenseNotAllowedIssue(SensorContext context, Dependency dependency, String notAllowedLicense)
     {
         LOGGER.info("Dependency " + dependency.getName() + " uses a not allowed license " + notAllowedLicense);
@@ -263,16 +185,4 @@ public class ValidateLicenses
                 return LicenseCheckRulesDefinition.RULE_REPO_KEY;
         }
     }
-
-    private static boolean contains(String[] items, String valueToFind)
-    {
-        for (String item : items)
-        {
-            if (item != null && item.equals(valueToFind))
-            {
-                return true;
-            }
-        }
-        return false;
-    }
 }
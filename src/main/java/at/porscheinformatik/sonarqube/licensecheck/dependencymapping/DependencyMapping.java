@@ -1,6 +1,7 @@
 package at.porscheinformatik.sonarqube.licensecheck.dependencymapping;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 public class DependencyMapping implements Comparable<DependencyMapping>
 {
@@ -11,6 +12,7 @@ public class DependencyMapping implements Comparable<DependencyMapping>
     private String key;
     private String license;
     private Boolean overwrite;
+    private Pattern pattern;
 
     public DependencyMapping(String key, String license, Boolean overwrite)
     {
@@ -28,6 +30,19 @@ public class DependencyMapping implements Comparable<DependencyMapping>
     public void setKey(String key)
     {
         this.key = key;
+        this.pattern = null;
+    }
+
+    /**
+     * @return the key compiled as regular expression (compiled once)
+     */
+    public Pattern getPattern()
+    {
+        if (pattern == null)
+        {
+            pattern = Pattern.compile(key);
+        }
+        return pattern;
     }
 
     public String getLicense()
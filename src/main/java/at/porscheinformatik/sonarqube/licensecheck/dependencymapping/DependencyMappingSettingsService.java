@@ -14,6 +14,8 @@ import org.sonar.api.config.Configuration;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 /**
@@ -30,14 +32,20 @@ public class DependencyMappingSettingsService
      */
     private final PersistentSettings persistentSettings;
 
+    /**
+     * This is not official API - used to save all settings in one transaction
+     */
+    private final DbClient dbClient;
+
     private final Configuration configuration;
     private final DependencyMappingService dependencyMappingService;
 
-    public DependencyMappingSettingsService(PersistentSettings persistentSettings, Configuration configuration,
-        DependencyMappingService dependencyMappingService)
+    public DependencyMappingSettingsService(PersistentSettings persistentSettings, DbClient dbClient,
+        Configuration configuration, DependencyMappingService dependencyMappingService)
     {
         super();
         this.persistentSettings = persistentSettings;
+        this.dbClient = dbClient;
         this.configuration = configuration;
         this.dependencyMappingService = dependencyMappingService;
     }
@@ -52,26 +60,31 @@ public class DependencyMappingSettingsService
         }
     }
 
-    private void saveSettings(List<DependencyMapping> dependencyMappings)
+    private void saveSettings(DbSession dbSession, List<DependencyMapping> dependencyMappings)
     {
         Collections.sort(dependencyMappings);
 
         String indexes = IntStream.range(1, dependencyMappings.size() + 1)
             .mapToObj(Integer::toString)
             .collect(Collectors.joining(","));
-        persistentSettings.saveProperty(DEPENDENCY_MAPPING, indexes);
+        persistentSettings.saveProperty(dbSession, DEPENDENCY_MAPPING, indexes);
         for (int i = 0; i < dependencyMappings.size(); i++)
         {
             DependencyMapping depMap = dependencyMappings.get(i);
             String idxProp = "." + (i + 1) + ".";
-            persistentSettings.saveProperty(DEPENDENCY_MAPPING + idxProp + FIELD_KEY, depMap.getKey());
-            persistentSettings.saveProperty(DEPENDENCY_MAPPING + idxProp + FIELD_LICENSE, depMap.getLicense());
+            persistentSettings.saveProperty(dbSession, DEPENDENCY_MAPPING + idxProp + FIELD_KEY, depMap.getKey());
+            persistentSettings.saveProperty(dbSession, DEPENDENCY_MAPPING + idxProp + FIELD_LICENSE,
+                depMap.getLicense());
         }
     }
 
     private void migrateOldSettings()
     {
-        saveSettings(dependencyMappingService.getDependencyMappingsOld());
-        persistentSettings.saveProperty(ALLOWED_DEPENDENCIES_KEY, null);
+        try (DbSession dbSession = dbClient.openSession(false))
+        {
+            saveSettings(dbSession, dependencyMappingService.getDependencyMappingsOld());
+            persistentSettings.saveProperty(dbSession, ALLOWED_DEPENDENCIES_KEY, null);
+            dbSession.commit();
+        }
     }
 }
@@ -0,0 +1,80 @@
+package at.porscheinformatik.sonarqube.licensecheck.dependencymapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * All dependency mappings prepared for matching dependency names. A dependency gets the license of
+ * <ul>
+ * <li>the last matching mapping with <code>overwrite</code> set or - if there is none and the dependency has no
+ * license -</li>
+ * <li>the first matching mapping</li>
+ * </ul>
+ */
+public final class DependencyMatcher
+{
+    private final List<DependencyMapping> dependencyMappings;
+    private final List<DependencyMapping> overwritingMappingsReversed = new ArrayList<>();
+
+    private DependencyMatcher(List<DependencyMapping> dependencyMappings)
+    {
+        this.dependencyMappings = new ArrayList<>();
+        for (DependencyMapping dependencyMapping : dependencyMappings)
+        {
+            if (dependencyMapping.getKey() == null)
+            {
+                continue;
+            }
+            // compile all patterns up front
+            dependencyMapping.getPattern();
+            this.dependencyMappings.add(dependencyMapping);
+            if (Boolean.TRUE.equals(dependencyMapping.getOverwrite()))
+            {
+                overwritingMappingsReversed.add(dependencyMapping);
+            }
+        }
+        Collections.reverse(overwritingMappingsReversed);
+    }
+
+    /**
+     * @param dependencyMappings the dependency mappings in configured order
+     * @return the prepared matcher
+     */
+    public static DependencyMatcher of(List<DependencyMapping> dependencyMappings)
+    {
+        return new DependencyMatcher(dependencyMappings);
+    }
+
+    /**
+     * @param dependencyName the name of the dependency
+     * @param currentLicense the license found for the dependency - may be blank
+     * @return the license of the dependency after applying the mappings
+     */
+    public String getLicense(String dependencyName, String currentLicense)
+    {
+        for (DependencyMapping dependencyMapping : overwritingMappingsReversed)
+        {
+            if (dependencyMapping.getPattern().matcher(dependencyName).matches())
+            {
+                return dependencyMapping.getLicense();
+            }
+        }
+
+        if (StringUtils.isBlank(currentLicense))
+        {
+            for (DependencyMapping dependencyMapping : dependencyMappings)
+            {
+                if (StringUtils.isNotBlank(dependencyMapping.getLicense())
+                    && dependencyMapping.getPattern().matcher(dependencyName).matches())
+                {
+                    return dependencyMapping.getLicense();
+                }
+            }
+        }
+
+        return currentLicense;
+    }
+}
@@ -4,38 +4,81 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import javax.json.Json;
 import javax.json.JsonArray;
+import javax.json.JsonException;
 import javax.json.JsonObject;
-import javax.json.JsonReader;
+import javax.json.JsonValue;
 
 import org.codehaus.plexus.util.StringUtils;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import at.porscheinformatik.sonarqube.licensecheck.AnalysisStatistics;
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyCache;
 import at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition;
 import at.porscheinformatik.sonarqube.licensecheck.Scanner;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
+import at.porscheinformatik.sonarqube.licensecheck.utils.JsonStreams;
 
 public class GradleDependencyScanner implements Scanner
 {
     private static final Logger LOGGER = Loggers.get(GradleDependencyScanner.class);
 
+    private static final String LICENSE_DETAILS_JSON = "reports" + File.separator + "dependency-license"
+        + File.separator + "license-details.json";
+
     private final LicenseMappingService licenseMappingService;
+    private final AnalysisStatistics statistics;
+    private final Set<Path> moduleDirs;
+    private final DependencyCache dependencyCache;
 
     public GradleDependencyScanner(LicenseMappingService licenseMappingService)
+    {
+        this(licenseMappingService, new AnalysisStatistics());
+    }
+
+    public GradleDependencyScanner(LicenseMappingService licenseMappingService, AnalysisStatistics statistics)
+    {
+        this(licenseMappingService, statistics, Collections.emptySet(), DependencyCache.disabled());
+    }
+
+    /**
+     * @param licenseMappingService the license mapping
+     * @param statistics counts the files read
+     * @param moduleDirs the (absolute) base directories of the modules of the analysis - their reports belong to
+     *     these modules and are not read again by a parent module
+     * @param dependencyCache dependencies read from unchanged reports in previous analyses
+     */
+    public GradleDependencyScanner(LicenseMappingService licenseMappingService, AnalysisStatistics statistics,
+        Set<Path> moduleDirs, DependencyCache dependencyCache)
     {
         this.licenseMappingService = licenseMappingService;
+        this.statistics = statistics;
+        this.moduleDirs = moduleDirs;
+        this.dependencyCache = dependencyCache;
     }
 
     @Override
@@ -43,88 +86,301 @@ public class GradleDependencyScanner implements Scanner
     {
         File moduleDir = context.fileSystem().baseDir();
 
-        Map<Pattern, String> defaultLicenseMap = licenseMappingService.getLicenseMap();
+        LicenseMatcher licenseMatcher = licenseMappingService.getLicenseMatcher();
 
-        File licenseDetailsJsonFile = new File(moduleDir, "build" + File.separator + "reports" + File.separator
-            + "dependency-license" + File.separator + "license-details.json");
+        List<File> licenseDetailsJsonFiles = findLicenseDetailsJsonFiles(moduleDir, moduleDirs);
 
-        if (!licenseDetailsJsonFile.exists())
+        if (licenseDetailsJsonFiles.isEmpty())
         {
             LOGGER.info("No license-details.json file found in {} - skipping Gradle dependency scan",
-                licenseDetailsJsonFile.getPath());
+                moduleDir.getPath());
             return Collections.emptySet();
         }
 
-        return readLicenseDetailsJson(licenseDetailsJsonFile)
-            .stream()
-            .map(d -> matchLicense(defaultLicenseMap, d))
-            .peek(d -> d.setInputComponent(context.module()))
-            .collect(Collectors.toSet());
+        Set<Dependency> dependencies = readLicenseDetailsJsonFiles(licenseDetailsJsonFiles, licenseMatcher);
+        dependencies.forEach(d -> d.setInputComponent(context.module()));
+        return dependencies;
     }
 
-    private Set<Dependency> readLicenseDetailsJson(File licenseDetailsJsonFile)
+    static List<File> findLicenseDetailsJsonFiles(File moduleDir)
+    {
+        return findLicenseDetailsJsonFiles(moduleDir, Collections.emptySet());
+    }
+
+    /**
+     * Finds the reports of the project and all its subprojects with one walk of the module tree. Subprojects analyzed
+     * as modules of their own are skipped, so each report is only read by its module. The contents of
+     * <code>build</code> and <code>src</code> directories, <code>node_modules</code> and hidden directories are
+     * skipped as well.
+     *
+     * @param moduleDir the base directory of the module
+     * @param moduleDirs the (absolute) base directories of all modules of the analysis
+     * @return the <code>license-details.json</code> files
+     */
+    static List<File> findLicenseDetailsJsonFiles(File moduleDir, Set<Path> moduleDirs)
     {
-        Set<Dependency> dependencySet = new HashSet<>();
-        try (InputStream fis = new FileInputStream(licenseDetailsJsonFile);
-            JsonReader jsonReader = Json.createReader(fis))
+        if (!moduleDir.isDirectory())
+        {
+            return Collections.emptyList();
+        }
+
+        Path root = moduleDir.toPath();
+        List<File> licenseDetailsJsonFiles = new ArrayList<>();
+        try
         {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                {
+                    if (dir.equals(root))
+                    {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    String name = dir.getFileName().toString();
+                    if ("build".equals(name))
+                    {
+                        File licenseDetailsJsonFile = dir.resolve(LICENSE_DETAILS_JSON).toFile();
+                        if (licenseDetailsJsonFile.isFile())
+                        {
+                            licenseDetailsJsonFiles.add(licenseDetailsJsonFile);
+                        }
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (name.startsWith(".") || "node_modules".equals(name) || "src".equals(name)
+                        || moduleDirs.contains(dir.toAbsolutePath().normalize()))
+                    {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc)
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Could not search Gradle license files in {}: {}", moduleDir.getPath(), e.getMessage());
+        }
 
-            JsonObject readObject = jsonReader.readObject();
+        Collections.sort(licenseDetailsJsonFiles);
+        return licenseDetailsJsonFiles;
+    }
+
+    /**
+     * Reads the reports in parallel and merges the dependencies of all subprojects - a dependency with a license is
+     * preferred over the same dependency (name and version) without one.
+     */
+    private Set<Dependency> readLicenseDetailsJsonFiles(List<File> licenseDetailsJsonFiles,
+        LicenseMatcher licenseMatcher)
+    {
+        List<Set<Dependency>> results = new ArrayList<>();
 
-            JsonArray arr = readObject.getJsonArray("dependencies");
+        if (licenseDetailsJsonFiles.size() == 1)
+        {
+            results.add(readLicenseDetailsJson(licenseDetailsJsonFiles.get(0), licenseMatcher));
+        }
+        else
+        {
+            int poolSize = Math.min(licenseDetailsJsonFiles.size(), Runtime.getRuntime().availableProcessors());
+            LOGGER.info("Reading {} Gradle license files with {} threads", licenseDetailsJsonFiles.size(), poolSize);
+            ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+            try
+            {
+                List<Future<Set<Dependency>>> futures = licenseDetailsJsonFiles.stream()
+                    .map(file -> executor.submit(() -> readLicenseDetailsJson(file, licenseMatcher)))
+                    .collect(Collectors.toList());
+
+                for (int i = 0; i < futures.size(); i++)
+                {
+                    try
+                    {
+                        results.add(futures.get(i).get());
+                    }
+                    catch (ExecutionException e)
+                    {
+                        LOGGER.warn("Could not read Gradle license file " + licenseDetailsJsonFiles.get(i),
+                            e.getCause());
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                LOGGER.warn("Interrupted while reading Gradle license files");
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
 
-            //read additional data from imported modules
-            JsonArray importedModuleDependencies = null;
-            if (readObject.containsKey("importedModules")) {
-                importedModuleDependencies = readObject.getJsonArray("importedModules").get(0).asJsonObject().getJsonArray("dependencies");
+        Map<String, Dependency> dependencies = new LinkedHashMap<>();
+        for (Set<Dependency> result : results)
+        {
+            for (Dependency dependency : result)
+            {
+                dependencies.merge(dependency.getName() + ":" + dependency.getVersion(), dependency,
+                    (existing, other) -> StringUtils.isBlank(existing.getLicense()) ? other : existing);
             }
+        }
+        return new HashSet<>(dependencies.values());
+    }
 
-            prepareDependencySet(dependencySet, arr, importedModuleDependencies);
-            return dependencySet;
+    /**
+     * @return the dependencies of one report with mapped licenses - taken from the {@link DependencyCache} if neither
+     *     the report nor the license mappings changed
+     */
+    private Set<Dependency> readLicenseDetailsJson(File licenseDetailsJsonFile, LicenseMatcher licenseMatcher)
+    {
+        String cacheManifest = "gradle:" + licenseDetailsJsonFile.getAbsolutePath();
+        String cacheHash = createCacheHash(licenseDetailsJsonFile);
+        List<Dependency> cachedDependencies = dependencyCache.get(cacheManifest, cacheHash);
+        if (cachedDependencies != null)
+        {
+            LOGGER.debug("{} has not changed - using the dependencies of the previous analysis",
+                licenseDetailsJsonFile);
+            statistics.increment(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS);
+            return new HashSet<>(cachedDependencies);
+        }
+
+        Set<Dependency> readDependencies = readLicenseDetailsJson(licenseDetailsJsonFile);
+        if (readDependencies == null)
+        {
+            return Collections.emptySet();
+        }
+        // the license is part of equals/hashCode - so collect the mapped dependencies into a new set
+        Set<Dependency> dependencies = readDependencies.stream()
+            .map(d -> matchLicense(licenseMatcher, d))
+            .collect(Collectors.toSet());
+        dependencyCache.put(cacheManifest, cacheHash, dependencies);
+        return dependencies;
+    }
+
+    /**
+     * @return the hash of the report and the license mappings for the {@link DependencyCache} or <code>null</code>
+     *     if the cache is not used
+     */
+    private String createCacheHash(File licenseDetailsJsonFile)
+    {
+        if (!dependencyCache.isEnabled())
+        {
+            return null;
+        }
+
+        try
+        {
+            statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+            return DependencyCache.newKey()
+                .add(licenseMappingService.getMappingsHash())
+                .addFile(licenseDetailsJsonFile.toPath())
+                .build();
         }
         catch (IOException e)
+        {
+            LOGGER.debug("Not using the dependency cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the dependencies of the report - <code>null</code> if it could not be read
+     */
+    private Set<Dependency> readLicenseDetailsJson(File licenseDetailsJsonFile)
+    {
+        List<Dependency> dependencies = new ArrayList<>();
+        // dependencies without license - resolved from the imported modules, which are usually listed afterwards
+        List<Dependency> unlicensed = new ArrayList<>();
+        // licenses of the imported modules by module name
+        Map<String, String> importedModuleLicenses = new HashMap<>();
+
+        Map<String, Consumer<JsonObject>> handlers = new HashMap<>();
+        handlers.put("dependencies", jsonDepObj -> addDependency(dependencies, unlicensed, jsonDepObj));
+        //read additional data from imported modules
+        handlers.put("importedModules", importedModule -> addImportedModule(importedModuleLicenses, importedModule));
+
+        statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+        try (InputStream fis = new FileInputStream(licenseDetailsJsonFile))
+        {
+            JsonStreams.forEachArrayObject(fis, handlers);
+        }
+        catch (IOException | JsonException e)
         {
             LOGGER.error("Problems reading Gradle license file {}: {}",
                 licenseDetailsJsonFile.getPath(), e.getMessage());
+            return null;
         }
-        return dependencySet;
+
+        unlicensed.forEach(dep -> dep.setLicense(getImportedModuleLicense(dep.getName(), importedModuleLicenses)));
+        return new HashSet<>(dependencies);
     }
 
-    private void prepareDependencySet(Set<Dependency> dependencySet, JsonArray arr, JsonArray importedModules)
+    private void addDependency(List<Dependency> dependencies, List<Dependency> unlicensed, JsonObject jsonDepObj)
     {
-        for (javax.json.JsonValue entry : arr)
+        JsonArray arrModuleUrls = jsonDepObj.getJsonArray("moduleUrls");
+        JsonArray arrModuleLicenses = jsonDepObj.getJsonArray("moduleLicenses");
+        String moduleLicense = arrModuleLicenses != null ? getModuleLicense(arrModuleLicenses) : null;
+        String moduleLicenseUrl = null;
+        if (arrModuleUrls != null)
+        {
+            moduleLicenseUrl = arrModuleUrls.getString(0, null);
+        }
+        Dependency dep = new Dependency(jsonDepObj.getString("moduleName", null),
+            jsonDepObj.getString("moduleVersion", null), moduleLicense, LicenseCheckRulesDefinition.LANG_JAVA);
+        dep.setPomPath(moduleLicenseUrl);
+        if (arrModuleLicenses == null)
         {
-            JsonObject jsonDepObj = entry.asJsonObject();
-            JsonArray arrModuleUrls = jsonDepObj.getJsonArray("moduleUrls");
-            String moduleLicense = getModuleLicenseFromJsonObject(jsonDepObj, importedModules);
-            String moduleLicenseUrl = null;
-            if (arrModuleUrls != null)
+            unlicensed.add(dep);
+        }
+        dependencies.add(dep);
+    }
+
+    /**
+     * Adds the licenses of all dependencies of an imported module group - the first license found for a module wins.
+     */
+    private void addImportedModule(Map<String, String> importedModuleLicenses, JsonObject importedModule)
+    {
+        JsonArray moduleDependencies = importedModule.getJsonArray("dependencies");
+        if (moduleDependencies == null)
+        {
+            return;
+        }
+        for (JsonValue entry : moduleDependencies)
+        {
+            if (entry.getValueType() != JsonValue.ValueType.OBJECT)
             {
-                moduleLicenseUrl = arrModuleUrls.getString(0, null);
+                continue;
+            }
+            JsonObject moduleDependency = entry.asJsonObject();
+            String moduleName = moduleDependency.getString("moduleName", null);
+            String moduleLicense = moduleDependency.getString("moduleLicense", null);
+            if (moduleName != null && moduleLicense != null)
+            {
+                importedModuleLicenses.putIfAbsent(moduleName, moduleLicense);
             }
-            Dependency dep = new Dependency(jsonDepObj.getString("moduleName", null),
-                jsonDepObj.getString("moduleVersion", null), moduleLicense, LicenseCheckRulesDefinition.LANG_JAVA);
-            dep.setPomPath(moduleLicenseUrl);
-            dependencySet.add(dep);
         }
     }
 
-    private String getModuleLicenseFromJsonObject(JsonObject jsonDepObj, JsonArray optImportedModules)
+    private String getImportedModuleLicense(String moduleName, Map<String, String> importedModuleLicenses)
     {
-        String moduleLicense = null;
-        JsonArray arrModuleLicenses = jsonDepObj.getJsonArray("moduleLicenses");
-        if (arrModuleLicenses != null)
-        {
-            moduleLicense = getModuleLicense(arrModuleLicenses);
-        } else if (optImportedModules != null) {
-            LOGGER.debug("No license found for {}... checking additional informations...", jsonDepObj.getString("moduleName"));
-            List<javax.json.JsonValue> importedDep = optImportedModules.stream().filter(d -> (d.asJsonObject()).getString("moduleName").equals(jsonDepObj.getString("moduleName"))).collect(Collectors.toList());
-            if (importedDep != null && !importedDep.isEmpty()) {
-                LOGGER.debug("License declared imported module !");
-                moduleLicense = (importedDep.get(0).asJsonObject()).getString("moduleLicense", null);
-            } else {
-                LOGGER.debug("License not found in imported module.");
-            }
+        if (importedModuleLicenses.isEmpty())
+        {
+            return null;
+        }
+        LOGGER.debug("No license found for {}... checking additional informations...", moduleName);
+        String moduleLicense = importedModuleLicenses.get(moduleName);
+        if (moduleLicense != null)
+        {
+            LOGGER.debug("License declared imported module !");
+        }
+        else
+        {
+            LOGGER.debug("License not found in imported module.");
         }
         return moduleLicense;
     }
@@ -144,17 +400,15 @@ public class GradleDependencyScanner implements Scanner
         return moduleLicense;
     }
 
-    private Dependency matchLicense(Map<Pattern, String> licenseMap, Dependency dependency) {
+    private Dependency matchLicense(LicenseMatcher licenseMatcher, Dependency dependency) {
         if (StringUtils.isBlank(dependency.getLicense())) {
             LOGGER.info("Dependency '{}' has no license set.", dependency.getName());
             return dependency;
         }
 
-        for (Map.Entry<Pattern, String> entry : licenseMap.entrySet()) {
-            if (entry.getKey().matcher(dependency.getLicense()).matches()) {
-                dependency.setLicense(entry.getValue());
-                break;
-            }
+        String mappedLicense = licenseMatcher.match(dependency.getLicense());
+        if (mappedLicense != null) {
+            dependency.setLicense(mappedLicense);
         }
         return dependency;
     }
@@ -0,0 +1,22 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+/**
+ * One Maven process resolving the dependency list of a POM (or of a whole reactor) - a JFR event on Java 11+.
+ */
+public class MavenInvocationEvent extends NoopEvent
+{
+    public void setPom(String pom)
+    {
+        // nothing to record
+    }
+
+    public void setReactor(boolean reactor)
+    {
+        // nothing to record
+    }
+
+    public void setExitCode(int exitCode)
+    {
+        // nothing to record
+    }
+}
@@ -0,0 +1,42 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+/**
+ * Java 8 stand-in for <code>jdk.jfr.Event</code> - records nothing. On Java 11 or later the events of this package
+ * are loaded from <code>META-INF/versions/11</code> of the plugin JAR (source in <code>src/main/java11</code>), where
+ * they extend <code>jdk.jfr.Event</code> instead.
+ * <p>
+ * Usage (the fields are only set if a recording wants the event):
+ * <pre>
+ * ScanEvent event = new ScanEvent();
+ * event.begin();
+ * ...
+ * event.end();
+ * if (event.shouldCommit())
+ * {
+ *     event.setScanner(...);
+ *     event.commit();
+ * }
+ * </pre>
+ */
+abstract class NoopEvent
+{
+    public void begin()
+    {
+        // nothing to record
+    }
+
+    public void end()
+    {
+        // nothing to record
+    }
+
+    public boolean shouldCommit()
+    {
+        return false;
+    }
+
+    public void commit()
+    {
+        // nothing to record
+    }
+}
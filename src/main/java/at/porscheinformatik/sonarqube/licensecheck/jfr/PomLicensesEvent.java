@@ -0,0 +1,27 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+/**
+ * Looking up the licenses of one POM, including its parents (which are nested events) - a JFR event on Java 11+.
+ */
+public class PomLicensesEvent extends NoopEvent
+{
+    public void setPom(String pom)
+    {
+        // nothing to record
+    }
+
+    public void setDependency(String dependency)
+    {
+        // nothing to record
+    }
+
+    public void setCacheHit(boolean cacheHit)
+    {
+        // nothing to record
+    }
+
+    public void setLicenseCount(int licenseCount)
+    {
+        // nothing to record
+    }
+}
@@ -0,0 +1,22 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+/**
+ * One {@link at.porscheinformatik.sonarqube.licensecheck.Scanner} scanning one module - a JFR event on Java 11+.
+ */
+public class ScanEvent extends NoopEvent
+{
+    public void setScanner(String scanner)
+    {
+        // nothing to record
+    }
+
+    public void setModule(String module)
+    {
+        // nothing to record
+    }
+
+    public void setDependencyCount(int dependencyCount)
+    {
+        // nothing to record
+    }
+}
@@ -0,0 +1,22 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+/**
+ * Validating the licenses of the dependencies of one module - a JFR event on Java 11+.
+ */
+public class ValidationEvent extends NoopEvent
+{
+    public void setProject(String project)
+    {
+        // nothing to record
+    }
+
+    public void setDependencyCount(int dependencyCount)
+    {
+        // nothing to record
+    }
+
+    public void setUnknownCount(int unknownCount)
+    {
+        // nothing to record
+    }
+}
@@ -0,0 +1,69 @@
+package at.porscheinformatik.sonarqube.licensecheck.license;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of licenses indexed by their identifier. If several licenses share an identifier, the first one is
+ * used.
+ */
+public final class LicenseCatalog
+{
+    private final Map<String, License> licensesById;
+
+    private LicenseCatalog(Map<String, License> licensesById)
+    {
+        this.licensesById = Collections.unmodifiableMap(licensesById);
+    }
+
+    /**
+     * @param licenses the licenses (with project specific settings already applied)
+     * @return the catalog
+     */
+    public static LicenseCatalog of(Collection<License> licenses)
+    {
+        Map<String, License> licensesById = new LinkedHashMap<>();
+        if (licenses != null)
+        {
+            for (License license : licenses)
+            {
+                if (license.getIdentifier() != null)
+                {
+                    licensesById.putIfAbsent(license.getIdentifier(), license);
+                }
+            }
+        }
+        return new LicenseCatalog(licensesById);
+    }
+
+    /**
+     * @param identifier the license identifier (e.g. <code>Apache-2.0</code>)
+     * @return the license or <code>null</code> if not in the catalog
+     */
+    public License get(String identifier)
+    {
+        return identifier == null ? null : licensesById.get(identifier);
+    }
+
+    /**
+     * @param identifier the license identifier
+     * @return <code>true</code> if the license is in the catalog and allowed
+     */
+    public boolean isAllowed(String identifier)
+    {
+        License license = get(identifier);
+        return license != null && Boolean.TRUE.equals(license.getAllowed());
+    }
+
+    public Collection<License> getLicenses()
+    {
+        return licensesById.values();
+    }
+
+    public int size()
+    {
+        return licensesById.size();
+    }
+}
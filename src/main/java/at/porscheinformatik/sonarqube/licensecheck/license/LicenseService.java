@@ -7,8 +7,9 @@ import static at.porscheinformatik.sonarqube.licensecheck.license.License.FIELD_
 import static at.porscheinformatik.sonarqube.licensecheck.license.License.FIELD_NAME;
 
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.sonar.api.config.Configuration;
@@ -42,16 +43,18 @@ public class LicenseService
             return globalLicenses;
         }
 
-        Collection<ProjectLicense> projectLicenses = projectLicenseService.getProjectLicenseList(module.key());
+        Map<String, Boolean> projectLicenses = new HashMap<>();
+        for (ProjectLicense projectLicense : projectLicenseService.getProjectLicenseList(module.key()))
+        {
+            projectLicenses.put(projectLicense.getLicense(), projectLicense.getAllowed());
+        }
 
         for (License license : globalLicenses)
         {
-            for (ProjectLicense projectLicense : projectLicenses)
+            Boolean allowed = projectLicenses.get(license.getIdentifier());
+            if (allowed != null)
             {
-                if (license.getIdentifier().equals(projectLicense.getLicense()))
-                {
-                    license.setAllowed(projectLicense.getAllowed()); //override the stati of the globalLicenses
-                }
+                license.setAllowed(allowed); //override the stati of the globalLicenses
             }
         }
 
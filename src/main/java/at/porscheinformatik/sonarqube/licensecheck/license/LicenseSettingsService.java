@@ -15,6 +15,8 @@ import org.sonar.api.config.Configuration;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 import at.porscheinformatik.sonarqube.licensecheck.utils.IOUtils;
@@ -33,14 +35,20 @@ public class LicenseSettingsService
      */
     private final PersistentSettings persistentSettings;
 
+    /**
+     * This is not official API - used to save all settings in one transaction
+     */
+    private final DbClient dbClient;
+
     private final Configuration configuration;
     private final LicenseService licenseService;
 
-    public LicenseSettingsService(PersistentSettings persistentSettings, Configuration configuration,
-        LicenseService licenseService)
+    public LicenseSettingsService(PersistentSettings persistentSettings, DbClient dbClient,
+        Configuration configuration, LicenseService licenseService)
     {
         super();
         this.persistentSettings = persistentSettings;
+        this.dbClient = dbClient;
         this.configuration = configuration;
         this.licenseService = licenseService;
     }
@@ -65,7 +73,11 @@ public class LicenseSettingsService
             {
                 String spdxLicenseListJson = IOUtils.readToString(inputStream);
                 List<License> spdxLicenses = License.fromString(spdxLicenseListJson);
-                saveSettings(spdxLicenses);
+                try (DbSession dbSession = dbClient.openSession(false))
+                {
+                    saveSettings(dbSession, spdxLicenses);
+                    dbSession.commit();
+                }
             }
             catch (Exception e)
             {
@@ -76,31 +88,36 @@ public class LicenseSettingsService
 
     private void migrateOldSettings()
     {
-        if (licenseService.getLicenses().isEmpty())
+        try (DbSession dbSession = dbClient.openSession(false))
         {
-            List<License> licensesOld = licenseService.getLicensesOld();
-            LOGGER.info("Migrating old config with {} entries", licensesOld.size());
-            if (!licensesOld.isEmpty())
+            if (licenseService.getLicenses().isEmpty())
             {
-                saveSettings(licensesOld);
+                List<License> licensesOld = licenseService.getLicensesOld();
+                LOGGER.info("Migrating old config with {} entries", licensesOld.size());
+                if (!licensesOld.isEmpty())
+                {
+                    saveSettings(dbSession, licensesOld);
+                }
             }
+            persistentSettings.saveProperty(dbSession, LICENSE_KEY, null);
+            dbSession.commit();
         }
-        persistentSettings.saveProperty(LICENSE_KEY, null);
     }
 
-    private void saveSettings(List<License> licenses)
+    private void saveSettings(DbSession dbSession, List<License> licenses)
     {
         String indexes = IntStream.range(1, licenses.size() + 1)
             .mapToObj(Integer::toString)
             .collect(Collectors.joining(","));
-        persistentSettings.saveProperty(LICENSE_SET, indexes);
+        persistentSettings.saveProperty(dbSession, LICENSE_SET, indexes);
         for (int i = 0; i < licenses.size(); i++)
         {
             License license = licenses.get(i);
             String idxProp = "." + (i + 1) + ".";
-            persistentSettings.saveProperty(LICENSE_SET + idxProp + FIELD_NAME, license.getName());
-            persistentSettings.saveProperty(LICENSE_SET + idxProp + FIELD_ID, license.getIdentifier());
-            persistentSettings.saveProperty(LICENSE_SET + idxProp + FIELD_ALLOWED, license.getAllowed().toString());
+            persistentSettings.saveProperty(dbSession, LICENSE_SET + idxProp + FIELD_NAME, license.getName());
+            persistentSettings.saveProperty(dbSession, LICENSE_SET + idxProp + FIELD_ID, license.getIdentifier());
+            persistentSettings.saveProperty(dbSession, LICENSE_SET + idxProp + FIELD_ALLOWED,
+                license.getAllowed().toString());
         }
         LOGGER.info("Saving the new config with {} entries", licenses.size());
     }
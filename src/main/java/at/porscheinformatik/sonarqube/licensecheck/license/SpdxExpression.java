@@ -0,0 +1,178 @@
+package at.porscheinformatik.sonarqube.licensecheck.license;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+
+/**
+ * Parsed SPDX license expression (see {@link SpdxExpressionParser}).
+ */
+public abstract class SpdxExpression
+{
+    private SpdxExpression()
+    {
+    }
+
+    /**
+     * Evaluates the expression against the license catalog:
+     * <ul>
+     * <li>a license is {@link Dependency.Status#Allowed allowed}, {@link Dependency.Status#Forbidden forbidden} or
+     * {@link Dependency.Status#Unknown unknown} (not in the catalog)</li>
+     * <li><code>AND</code> is allowed if all operands are, unknown if any operand is unknown</li>
+     * <li><code>OR</code> is allowed if any operand is, unknown if any operand is unknown</li>
+     * </ul>
+     *
+     * @param licenseCatalog the license catalog
+     * @param forbiddenLicenses collects the forbidden licenses used by the expression
+     * @return the status
+     */
+    public abstract Dependency.Status evaluate(LicenseCatalog licenseCatalog, Collection<License> forbiddenLicenses);
+
+    /**
+     * A single license - optionally with <code>+</code> (or later version) and a <code>WITH</code> exception.
+     */
+    public static final class LicenseId extends SpdxExpression
+    {
+        private final String id;
+        private final boolean orLater;
+        private final String exception;
+
+        LicenseId(String id, boolean orLater, String exception)
+        {
+            this.id = id;
+            this.orLater = orLater;
+            this.exception = exception;
+        }
+
+        public String getId()
+        {
+            return id;
+        }
+
+        public boolean isOrLater()
+        {
+            return orLater;
+        }
+
+        public String getException()
+        {
+            return exception;
+        }
+
+        /**
+         * @return the license of the catalog - the full expression (e.g. <code>GPL-2.0+ WITH
+         *     Classpath-exception-2.0</code>) is preferred over the plain license id (e.g. <code>GPL-2.0</code>)
+         */
+        License findLicense(LicenseCatalog licenseCatalog)
+        {
+            License license = licenseCatalog.get(toString());
+            if (license == null && exception != null)
+            {
+                license = licenseCatalog.get(orLater ? id + "+" : id);
+            }
+            if (license == null && orLater)
+            {
+                license = licenseCatalog.get(id + "-or-later");
+                if (license == null)
+                {
+                    license = licenseCatalog.get(id);
+                }
+            }
+            return license;
+        }
+
+        @Override
+        public Dependency.Status evaluate(LicenseCatalog licenseCatalog, Collection<License> forbiddenLicenses)
+        {
+            License license = findLicense(licenseCatalog);
+            if (license == null)
+            {
+                return Dependency.Status.Unknown;
+            }
+            if (Boolean.TRUE.equals(license.getAllowed()))
+            {
+                return Dependency.Status.Allowed;
+            }
+            forbiddenLicenses.add(license);
+            return Dependency.Status.Forbidden;
+        }
+
+        @Override
+        public String toString()
+        {
+            return id + (orLater ? "+" : "") + (exception != null ? " WITH " + exception : "");
+        }
+    }
+
+    /**
+     * <code>AND</code> or <code>OR</code> of two or more expressions.
+     */
+    public static final class Compound extends SpdxExpression
+    {
+        private final boolean conjunction;
+        private final List<SpdxExpression> operands;
+
+        Compound(boolean conjunction, List<SpdxExpression> operands)
+        {
+            this.conjunction = conjunction;
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        /**
+         * @return <code>true</code> for <code>AND</code>, <code>false</code> for <code>OR</code>
+         */
+        public boolean isConjunction()
+        {
+            return conjunction;
+        }
+
+        public List<SpdxExpression> getOperands()
+        {
+            return operands;
+        }
+
+        @Override
+        public Dependency.Status evaluate(LicenseCatalog licenseCatalog, Collection<License> forbiddenLicenses)
+        {
+            Dependency.Status decisive = conjunction ? Dependency.Status.Forbidden : Dependency.Status.Allowed;
+            boolean decided = false;
+            boolean unknown = false;
+            for (SpdxExpression operand : operands)
+            {
+                Dependency.Status status = operand.evaluate(licenseCatalog, forbiddenLicenses);
+                if (status == Dependency.Status.Unknown)
+                {
+                    unknown = true;
+                }
+                else if (status == decisive)
+                {
+                    decided = true;
+                }
+            }
+
+            if (!conjunction && decided)
+            {
+                // one allowed alternative is enough
+                return Dependency.Status.Allowed;
+            }
+            if (unknown)
+            {
+                return Dependency.Status.Unknown;
+            }
+            return decided ? decisive
+                : conjunction ? Dependency.Status.Allowed : Dependency.Status.Forbidden;
+        }
+
+        @Override
+        public String toString()
+        {
+            return operands.stream()
+                .map(o -> o instanceof Compound ? "(" + o + ")" : o.toString())
+                .collect(Collectors.joining(conjunction ? " AND " : " OR "));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package at.porscheinformatik.sonarqube.licensecheck.license;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for SPDX license expressions (e.g. <code>(MIT OR Apache-2.0) AND GPL-2.0+ WITH Classpath-exception-2.0</code>).
+ * <code>WITH</code> binds stronger than <code>AND</code>, which binds stronger than <code>OR</code>. Operators are
+ * case-sensitive and license ids may contain spaces (e.g. <code>Apache License 2.0 OR MIT</code>), as dependencies
+ * often use license names instead of SPDX ids. A string which is no valid expression is treated as a single license
+ * id.
+ * <p>
+ * The parser keeps no state between calls - parsed expressions are cached per analysis by the
+ * {@link at.porscheinformatik.sonarqube.licensecheck.LicensePolicy}.
+ */
+public final class SpdxExpressionParser
+{
+    private static final String AND = "AND";
+    private static final String OR = "OR";
+    private static final String WITH = "WITH";
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+
+    private final List<String> tokens;
+    private int position;
+
+    private SpdxExpressionParser(List<String> tokens)
+    {
+        this.tokens = tokens;
+    }
+
+    /**
+     * @param expression the license expression (not blank)
+     * @return the parsed expression
+     */
+    public static SpdxExpression parse(String expression)
+    {
+        SpdxExpressionParser parser = new SpdxExpressionParser(tokenize(expression));
+        try
+        {
+            SpdxExpression spdxExpression = parser.parseOr();
+            if (parser.position == parser.tokens.size())
+            {
+                return spdxExpression;
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            // no valid expression
+        }
+        return new SpdxExpression.LicenseId(expression.trim(), false, null);
+    }
+
+    private SpdxExpression parseOr()
+    {
+        List<SpdxExpression> operands = new ArrayList<>();
+        operands.add(parseAnd());
+        while (accept(OR))
+        {
+            operands.add(parseAnd());
+        }
+        return operands.size() == 1 ? operands.get(0) : new SpdxExpression.Compound(false, operands);
+    }
+
+    private SpdxExpression parseAnd()
+    {
+        List<SpdxExpression> operands = new ArrayList<>();
+        operands.add(parseWith());
+        while (accept(AND))
+        {
+            operands.add(parseWith());
+        }
+        return operands.size() == 1 ? operands.get(0) : new SpdxExpression.Compound(true, operands);
+    }
+
+    private SpdxExpression parseWith()
+    {
+        if (accept(OPEN))
+        {
+            SpdxExpression expression = parseOr();
+            if (!accept(CLOSE))
+            {
+                throw new IllegalArgumentException("Missing )");
+            }
+            return expression;
+        }
+
+        String id = nextId();
+        boolean orLater = id.length() > 1 && id.endsWith("+");
+        if (orLater)
+        {
+            id = id.substring(0, id.length() - 1);
+        }
+        String exception = accept(WITH) ? nextId() : null;
+        return new SpdxExpression.LicenseId(id, orLater, exception);
+    }
+
+    private boolean accept(String token)
+    {
+        if (position < tokens.size() && tokens.get(position).equals(token))
+        {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private String nextId()
+    {
+        if (position >= tokens.size() || isOperator(tokens.get(position)))
+        {
+            throw new IllegalArgumentException("License id expected");
+        }
+        return tokens.get(position++);
+    }
+
+    private static boolean isOperator(String token)
+    {
+        return AND.equals(token) || OR.equals(token) || WITH.equals(token) || OPEN.equals(token)
+            || CLOSE.equals(token);
+    }
+
+    /**
+     * Splits into parentheses, operators and license ids (consecutive words).
+     */
+    private static List<String> tokenize(String expression)
+    {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder id = new StringBuilder();
+        int i = 0;
+        while (i < expression.length())
+        {
+            char c = expression.charAt(i);
+            if (c == '(' || c == ')')
+            {
+                addId(tokens, id);
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+            else if (Character.isWhitespace(c))
+            {
+                i++;
+            }
+            else
+            {
+                int end = i;
+                while (end < expression.length() && !Character.isWhitespace(expression.charAt(end))
+                    && expression.charAt(end) != '(' && expression.charAt(end) != ')')
+                {
+                    end++;
+                }
+                String word = expression.substring(i, end);
+                if (AND.equals(word) || OR.equals(word) || WITH.equals(word))
+                {
+                    addId(tokens, id);
+                    tokens.add(word);
+                }
+                else
+                {
+                    if (id.length() > 0)
+                    {
+                        id.append(' ');
+                    }
+                    id.append(word);
+                }
+                i = end;
+            }
+        }
+        addId(tokens, id);
+        return tokens;
+    }
+
+    private static void addId(List<String> tokens, StringBuilder id)
+    {
+        if (id.length() > 0)
+        {
+            tokens.add(id.toString());
+            id.setLength(0);
+        }
+    }
+}
@@ -6,9 +6,10 @@ import static at.porscheinformatik.sonarqube.licensecheck.licensemapping.License
 import static at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMapping.FIELD_REGEX;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -16,15 +17,21 @@ import org.codehaus.plexus.util.StringUtils;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.scanner.ScannerSide;
 import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import at.porscheinformatik.sonarqube.licensecheck.DependencyCache;
 
 @ServerSide
 @ScannerSide
 public class LicenseMappingService
 {
+    private static final Logger LOGGER = Loggers.get(LicenseMappingService.class);
+
     private final Configuration configuration;
 
-    /** Holding license map on scanner side */
-    private static transient Map<Pattern, String> LICENSE_MAP;
+    private volatile LicenseMatcher licenseMatcher;
+    private final LongAdder compileNanos = new LongAdder();
 
     public LicenseMappingService(Configuration configuration)
     {
@@ -54,19 +61,59 @@ public class LicenseMappingService
         return LicenseMapping.fromString(configuration.get(LICENSE_REGEX).orElse(null));
     }
 
+    /**
+     * @return the license mappings in configured order
+     * @deprecated use {@link #getLicenseMatcher()} instead
+     */
+    @Deprecated
     public Map<Pattern, String> getLicenseMap()
     {
-        if (LICENSE_MAP != null)
+        Map<Pattern, String> licenseMap = new LinkedHashMap<>();
+        for (LicenseMapping license : getLicenseMappingList())
         {
-            return LICENSE_MAP;
+            licenseMap.put(license.getRegex(), license.getLicense());
         }
+        return licenseMap;
+    }
 
-        LICENSE_MAP = new HashMap<>();
-        for (LicenseMapping license : getLicenseMappingList())
+    /**
+     * @return all license mappings compiled into one matcher (built once per analysis or after the mappings were
+     *     changed via {@link #invalidate()})
+     */
+    public LicenseMatcher getLicenseMatcher()
+    {
+        LicenseMatcher matcher = licenseMatcher;
+        if (matcher == null)
         {
-            LICENSE_MAP.put(license.getRegex(), license.getLicense());
+            long start = System.nanoTime();
+            matcher = LicenseMatcher.of(getLicenseMappingList());
+            compileNanos.add(System.nanoTime() - start);
+            licenseMatcher = matcher;
         }
-        return LICENSE_MAP;
+        return matcher;
+    }
+
+    /**
+     * @return time spent compiling the license mappings and matching license names (all threads)
+     */
+    public long getMappingNanos()
+    {
+        LicenseMatcher matcher = licenseMatcher;
+        return compileNanos.sum() + (matcher != null ? matcher.getMatchNanos() : 0);
+    }
+
+    /**
+     * @return hash of the license mappings - part of the keys in the {@link DependencyCache}, as the scanners map the
+     *     licenses
+     */
+    public String getMappingsHash()
+    {
+        DependencyCache.Key key = DependencyCache.newKey();
+        for (LicenseMapping licenseMapping : getLicenseMappingList())
+        {
+            key.add(licenseMapping.getRegex().pattern()).add(licenseMapping.getLicense());
+        }
+        return key.build();
     }
 
     public String mapLicense(String licenseName)
@@ -76,14 +123,28 @@ public class LicenseMappingService
             return licenseName;
         }
 
-        Map<Pattern, String> licenseMap = getLicenseMap();
-        for (Map.Entry<Pattern, String> entry : licenseMap.entrySet())
+        String license = getLicenseMatcher().match(licenseName);
+        return license != null ? license : licenseName;
+    }
+
+    /**
+     * Drops the compiled matcher including its memoized results - call after changing the license mappings.
+     */
+    public void invalidate()
+    {
+        licenseMatcher = null;
+    }
+
+    public void logStatistics()
+    {
+        LicenseMatcher matcher = licenseMatcher;
+        if (matcher == null)
         {
-            if (entry.getKey().matcher(licenseName).matches())
-            {
-                return entry.getValue();
-            }
+            return;
         }
-        return licenseName;
+        long hits = matcher.getHits();
+        long total = hits + matcher.getMisses();
+        LOGGER.debug("License mapping cache: {} hits, {} misses ({}% hit rate)", hits, total - hits,
+            total == 0 ? 0 : hits * 100 / total);
     }
 }
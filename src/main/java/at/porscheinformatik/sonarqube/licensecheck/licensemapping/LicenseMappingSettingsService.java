@@ -14,6 +14,8 @@ import org.sonar.api.config.Configuration;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 import at.porscheinformatik.sonarqube.licensecheck.utils.IOUtils;
@@ -32,14 +34,20 @@ public class LicenseMappingSettingsService
      */
     private final PersistentSettings persistentSettings;
 
+    /**
+     * This is not official API - used to save all settings in one transaction
+     */
+    private final DbClient dbClient;
+
     private final Configuration configuration;
     private final LicenseMappingService licenseMappingService;
 
-    public LicenseMappingSettingsService(PersistentSettings persistentSettings, Configuration configuration,
-        LicenseMappingService licenseMappingService)
+    public LicenseMappingSettingsService(PersistentSettings persistentSettings, DbClient dbClient,
+        Configuration configuration, LicenseMappingService licenseMappingService)
     {
         super();
         this.persistentSettings = persistentSettings;
+        this.dbClient = dbClient;
         this.configuration = configuration;
         this.licenseMappingService = licenseMappingService;
     }
@@ -63,7 +71,12 @@ public class LicenseMappingSettingsService
                 "default_license_mapping.json"))
             {
                 String licenseMappingListString = IOUtils.readToString(in);
-                saveSettings(LicenseMapping.fromString(licenseMappingListString));
+                try (DbSession dbSession = dbClient.openSession(false))
+                {
+                    saveSettings(dbSession, LicenseMapping.fromString(licenseMappingListString));
+                    dbSession.commit();
+                }
+                licenseMappingService.invalidate();
             }
             catch (Exception e)
             {
@@ -72,25 +85,31 @@ public class LicenseMappingSettingsService
         }
     }
 
-    private void saveSettings(List<LicenseMapping> licensMappings)
+    private void saveSettings(DbSession dbSession, List<LicenseMapping> licensMappings)
     {
         String indexes = IntStream.range(1, licensMappings.size() + 1)
             .mapToObj(Integer::toString)
             .collect(Collectors.joining(","));
-        persistentSettings.saveProperty(LICENSE_MAPPING, indexes);
+        persistentSettings.saveProperty(dbSession, LICENSE_MAPPING, indexes);
         for (int i = 0; i < licensMappings.size(); i++)
         {
             LicenseMapping licenseMapping = licensMappings.get(i);
             String idxProp = "." + (i + 1) + ".";
-            persistentSettings.saveProperty(LICENSE_MAPPING + idxProp + FIELD_LICENSE, licenseMapping.getLicense());
-            persistentSettings.saveProperty(LICENSE_MAPPING + idxProp + FIELD_REGEX,
+            persistentSettings.saveProperty(dbSession, LICENSE_MAPPING + idxProp + FIELD_LICENSE,
+                licenseMapping.getLicense());
+            persistentSettings.saveProperty(dbSession, LICENSE_MAPPING + idxProp + FIELD_REGEX,
                 licenseMapping.getRegex().toString());
         }
     }
 
     private void migrateOldSettings()
     {
-        saveSettings(licenseMappingService.getLicenseMappingListOld());
-        persistentSettings.saveProperty(LICENSE_REGEX, null);
+        try (DbSession dbSession = dbClient.openSession(false))
+        {
+            saveSettings(dbSession, licenseMappingService.getLicenseMappingListOld());
+            persistentSettings.saveProperty(dbSession, LICENSE_REGEX, null);
+            dbSession.commit();
+        }
+        licenseMappingService.invalidate();
     }
 }
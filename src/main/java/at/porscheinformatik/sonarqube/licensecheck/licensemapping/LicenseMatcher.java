@@ -0,0 +1,240 @@
+package at.porscheinformatik.sonarqube.licensecheck.licensemapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * All license mappings compiled into one matcher. The mapping that comes first in the configured list wins, no matter
+ * how it is matched:
+ * <ul>
+ * <li>mappings without any regex syntax (e.g. <code>MIT</code> or <code>^MIT$</code>) are looked up by the exact
+ * license name</li>
+ * <li>mappings starting with a literal (e.g. <code>^Apache.*2.*$</code>) are only tried for names starting with that
+ * literal</li>
+ * <li>all other mappings are tried with their regular expression</li>
+ * </ul>
+ * Results (including misses) are memoized per license name, as there are usually only a few dozen distinct names.
+ */
+public final class LicenseMatcher
+{
+    private static final String REGEX_META_CHARS = "\\.[]{}()*+?^$|";
+    static final int MAX_MEMO_SIZE = 10_000;
+
+    private final Map<String, Entry> exactMatches = new HashMap<>();
+    private final Map<Character, List<Entry>> prefixBuckets = new HashMap<>();
+    private final List<Entry> regexMatches = new ArrayList<>();
+    private final int size;
+    private final Map<String, Optional<String>> memo = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder matchNanos = new LongAdder();
+
+    private LicenseMatcher(List<LicenseMapping> licenseMappings)
+    {
+        for (int i = 0; i < licenseMappings.size(); i++)
+        {
+            LicenseMapping licenseMapping = licenseMappings.get(i);
+            Entry entry = new Entry(i, licenseMapping);
+            String pattern = licenseMapping.getRegex().pattern();
+
+            String literal = getLiteral(pattern);
+            if (literal != null)
+            {
+                exactMatches.putIfAbsent(literal, entry);
+                continue;
+            }
+
+            String prefix = getLiteralPrefix(pattern);
+            if (prefix.isEmpty())
+            {
+                regexMatches.add(entry);
+            }
+            else
+            {
+                entry.prefix = prefix;
+                prefixBuckets.computeIfAbsent(prefix.charAt(0), c -> new ArrayList<>()).add(entry);
+            }
+        }
+        this.size = licenseMappings.size();
+    }
+
+    /**
+     * @param licenseMappings the license mappings in order of precedence
+     * @return the compiled matcher
+     */
+    public static LicenseMatcher of(List<LicenseMapping> licenseMappings)
+    {
+        return new LicenseMatcher(licenseMappings);
+    }
+
+    /**
+     * @param licenseName the license name (e.g. from a Maven POM or a package.json)
+     * @return the license of the first matching mapping or <code>null</code> if none matches
+     */
+    public String match(String licenseName)
+    {
+        if (licenseName == null)
+        {
+            return null;
+        }
+
+        Optional<String> license = memo.get(licenseName);
+        if (license != null)
+        {
+            hits.increment();
+            return license.orElse(null);
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        license = Optional.ofNullable(findMatch(licenseName));
+        matchNanos.add(System.nanoTime() - start);
+        if (memo.size() < MAX_MEMO_SIZE)
+        {
+            memo.put(licenseName, license);
+        }
+        return license.orElse(null);
+    }
+
+    private String findMatch(String licenseName)
+    {
+        Entry exactMatch = exactMatches.get(licenseName);
+        int limit = exactMatch != null ? exactMatch.index : size;
+
+        List<Entry> prefixCandidates = licenseName.isEmpty()
+            ? Collections.emptyList()
+            : prefixBuckets.getOrDefault(licenseName.charAt(0), Collections.emptyList());
+
+        // both lists are ordered by index - merge them to try the candidates in order of precedence
+        int p = 0;
+        int r = 0;
+        while (true)
+        {
+            Entry prefixCandidate = p < prefixCandidates.size() ? prefixCandidates.get(p) : null;
+            Entry regexCandidate = r < regexMatches.size() ? regexMatches.get(r) : null;
+            Entry candidate;
+            if (prefixCandidate != null && (regexCandidate == null || prefixCandidate.index < regexCandidate.index))
+            {
+                candidate = prefixCandidate;
+                p++;
+            }
+            else
+            {
+                candidate = regexCandidate;
+                r++;
+            }
+
+            if (candidate == null || candidate.index >= limit)
+            {
+                break;
+            }
+            if ((candidate.prefix == null || licenseName.startsWith(candidate.prefix))
+                && candidate.licenseMapping.getRegex().matcher(licenseName).matches())
+            {
+                return candidate.licenseMapping.getLicense();
+            }
+        }
+
+        return exactMatch != null ? exactMatch.licenseMapping.getLicense() : null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return number of {@link #match(String)} calls answered from the memo table
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of {@link #match(String)} calls which had to try the mappings
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return time spent trying the mappings (all threads) - memoized results take no noticeable time
+     */
+    public long getMatchNanos()
+    {
+        return matchNanos.sum();
+    }
+
+    /**
+     * @return the string matched by the pattern if it does not use any regex syntax (except anchors), otherwise
+     *     <code>null</code>
+     */
+    static String getLiteral(String pattern)
+    {
+        String literal = stripAnchors(pattern);
+        for (int i = 0; i < literal.length(); i++)
+        {
+            if (REGEX_META_CHARS.indexOf(literal.charAt(i)) >= 0)
+            {
+                return null;
+            }
+        }
+        return literal;
+    }
+
+    /**
+     * @return the literal every string matched by the pattern starts with - empty if unknown
+     */
+    static String getLiteralPrefix(String pattern)
+    {
+        if (pattern.indexOf('|') >= 0)
+        {
+            // alternatives might not share the prefix
+            return "";
+        }
+
+        String regex = pattern.startsWith("^") ? pattern.substring(1) : pattern;
+        int end = 0;
+        while (end < regex.length() && REGEX_META_CHARS.indexOf(regex.charAt(end)) < 0)
+        {
+            end++;
+        }
+        if (end < regex.length() && "*+?{".indexOf(regex.charAt(end)) >= 0)
+        {
+            // the last literal character is quantified (e.g. "ab*")
+            end--;
+        }
+        return end > 0 ? regex.substring(0, end) : "";
+    }
+
+    private static String stripAnchors(String pattern)
+    {
+        String literal = pattern.startsWith("^") ? pattern.substring(1) : pattern;
+        if (literal.endsWith("$") && !literal.endsWith("\\$"))
+        {
+            literal = literal.substring(0, literal.length() - 1);
+        }
+        return literal;
+    }
+
+    private static final class Entry
+    {
+        private final int index;
+        private final LicenseMapping licenseMapping;
+        private String prefix;
+
+        private Entry(int index, LicenseMapping licenseMapping)
+        {
+            this.index = index;
+            this.licenseMapping = licenseMapping;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package at.porscheinformatik.sonarqube.licensecheck.maven;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 
@@ -9,26 +11,108 @@ import org.apache.maven.model.License;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import at.porscheinformatik.sonarqube.licensecheck.AnalysisStatistics;
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
 import at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition;
+import at.porscheinformatik.sonarqube.licensecheck.jfr.PomLicensesEvent;
 
 class LicenseFinder
 {
-
     private static final Logger LOGGER = Loggers.get(LicenseFinder.class);
 
-    private LicenseFinder()
+    private final File mavenRepositoryDir;
+    private final PomLicenseCache cache;
+    private final PersistentPomLicenseCache persistentCache;
+    private final AnalysisStatistics statistics;
+
+    /**
+     * @param mavenRepositoryDir the local Maven repository (for looking up parent POMs)
+     * @param cache the in-memory cache
+     * @param persistentCache the cache persisted between analyses - may be <code>null</code>
+     * @param statistics counts the parsed POMs and cache hits
+     */
+    LicenseFinder(File mavenRepositoryDir, PomLicenseCache cache, PersistentPomLicenseCache persistentCache,
+        AnalysisStatistics statistics)
+    {
+        this.mavenRepositoryDir = mavenRepositoryDir;
+        this.cache = cache;
+        this.persistentCache = persistentCache;
+        this.statistics = statistics;
+    }
+
+    LicenseFinder(File mavenRepositoryDir, PomLicenseCache cache)
+    {
+        this(mavenRepositoryDir, cache, null, new AnalysisStatistics());
+    }
+
+    LicenseFinder(MavenSettings settings, PomLicenseCache cache, PersistentPomLicenseCache persistentCache,
+        AnalysisStatistics statistics)
+    {
+        this(DirectoryFinder.getMavenRepsitoryDir(settings.userSettings, settings.globalSettings), cache,
+            persistentCache, statistics);
+    }
+
+    PomLicenseCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * @param dependency the dependency (groupId:artifactId and version)
+     * @param filePath the POM of the dependency
+     * @return the licenses of the POM or - if it has none - the ones of its parent
+     */
+    List<License> getLicenses(Dependency dependency, File filePath)
+    {
+        return getLicenses(dependency.getName() + ":" + dependency.getVersion(), filePath);
+    }
+
+    private List<License> getLicenses(String gav, File filePath)
     {
+        PomLicensesEvent event = new PomLicensesEvent();
+        event.begin();
+        List<License> licenses = cache.get(gav);
+        boolean cacheHit = licenses != null;
+        if (!cacheHit)
+        {
+            licenses = persistentCache != null ? persistentCache.get(gav, filePath) : null;
+            cacheHit = licenses != null;
+            if (!cacheHit)
+            {
+                licenses = readLicenses(filePath);
+                if (persistentCache != null)
+                {
+                    persistentCache.put(gav, filePath, licenses);
+                }
+            }
+            cache.put(gav, licenses);
+        }
+        if (cacheHit)
+        {
+            statistics.increment(AnalysisStatistics.Counter.POM_CACHE_HITS);
+        }
+
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.setPom(filePath.getPath());
+            event.setDependency(gav);
+            event.setCacheHit(cacheHit);
+            event.setLicenseCount(licenses.size());
+            event.commit();
+        }
+        return licenses;
     }
 
-    public static List<License> getLicenses(File filePath, String userSettings, String globalSettings)
+    private List<License> readLicenses(File filePath)
     {
         try
         {
-            Model model = new MavenXpp3Reader().read(new FileInputStream(filePath));
+            Model model = readModel(filePath);
 
             if (!model.getLicenses().isEmpty())
             {
@@ -42,9 +126,7 @@ class LicenseFinder
                     Dependency dependency =
                         new Dependency(parent.getGroupId() + ":" + parent.getArtifactId(), parent.getVersion(), null,
                             LicenseCheckRulesDefinition.LANG_JAVA);
-                    return getLicenses(DirectoryFinder.getPomPath(dependency,
-                        DirectoryFinder.getMavenRepsitoryDir(userSettings, globalSettings)),
-                        userSettings, globalSettings);
+                    return getLicenses(dependency, DirectoryFinder.getPomPath(dependency, mavenRepositoryDir));
                 }
                 else
                 {
@@ -60,4 +142,18 @@ class LicenseFinder
         }
     }
 
+    private Model readModel(File filePath) throws IOException, XmlPullParserException
+    {
+        long start = System.nanoTime();
+        try (InputStream in = new FileInputStream(filePath))
+        {
+            return new MavenXpp3Reader().read(in);
+        }
+        finally
+        {
+            statistics.addTime(AnalysisStatistics.Phase.POM_PARSING, System.nanoTime() - start);
+            statistics.increment(AnalysisStatistics.Counter.POMS_PARSED);
+            statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+        }
+    }
 }
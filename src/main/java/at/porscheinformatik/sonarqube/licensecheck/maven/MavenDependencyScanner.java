@@ -2,21 +2,35 @@ package at.porscheinformatik.sonarqube.licensecheck.maven;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.maven.model.License;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.apache.maven.shared.invoker.DefaultInvoker;
 import org.apache.maven.shared.invoker.InvocationRequest;
@@ -24,6 +38,7 @@ import org.apache.maven.shared.invoker.InvocationResult;
 import org.apache.maven.shared.invoker.Invoker;
 import org.apache.maven.shared.invoker.MavenInvocationException;
 import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
@@ -31,10 +46,14 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import at.porscheinformatik.sonarqube.licensecheck.AnalysisStatistics;
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyCache;
 import at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition;
+import at.porscheinformatik.sonarqube.licensecheck.jfr.MavenInvocationEvent;
 import at.porscheinformatik.sonarqube.licensecheck.Scanner;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
 
 public class MavenDependencyScanner implements Scanner
 {
@@ -42,10 +61,42 @@ public class MavenDependencyScanner implements Scanner
     private static final String MAVEN_REPO_LOCAL = "maven.repo.local";
 
     private final LicenseMappingService licenseMappingService;
+    private final int parallelism;
+    private final boolean reactor;
+    private final Path licenseCacheFile;
+    private final AnalysisStatistics statistics;
+    private final DependencyCache dependencyCache;
 
     public MavenDependencyScanner(LicenseMappingService licenseMappingService)
+    {
+        this(licenseMappingService, 1, false, null);
+    }
+
+    public MavenDependencyScanner(LicenseMappingService licenseMappingService, int parallelism, boolean reactor,
+        Path licenseCacheFile)
+    {
+        this(licenseMappingService, parallelism, reactor, licenseCacheFile, new AnalysisStatistics(),
+            DependencyCache.disabled());
+    }
+
+    /**
+     * @param licenseMappingService the license mapping
+     * @param parallelism the maximum number of Maven invocations (one per POM) running at the same time
+     * @param reactor resolve all modules with one recursive invocation of the root POM
+     * @param licenseCacheFile file for persisting resolved POM licenses between analyses - <code>null</code> to
+     *     disable
+     * @param statistics collects the time spent in Maven and parsing POMs
+     * @param dependencyCache dependencies of the POMs resolved in previous analyses
+     */
+    public MavenDependencyScanner(LicenseMappingService licenseMappingService, int parallelism, boolean reactor,
+        Path licenseCacheFile, AnalysisStatistics statistics, DependencyCache dependencyCache)
     {
         this.licenseMappingService = licenseMappingService;
+        this.parallelism = Math.max(1, parallelism);
+        this.reactor = reactor;
+        this.licenseCacheFile = licenseCacheFile;
+        this.statistics = statistics;
+        this.dependencyCache = dependencyCache;
     }
 
     @Override
@@ -56,39 +107,367 @@ public class MavenDependencyScanner implements Scanner
         FileSystem fs = context.fileSystem();
         FilePredicate pomXmlPredicate = fs.predicates().matchesPathPattern("**/pom.xml");
 
-        Set<Dependency> allDependencies = new HashSet<>();
-
+        List<InputFile> pomXmls = new ArrayList<>();
         for (InputFile pomXml : fs.inputFiles(pomXmlPredicate))
         {
             context.markForPublishing(pomXml);
+            pomXmls.add(pomXml);
+        }
+
+        if (pomXmls.isEmpty())
+        {
+            return Collections.emptySet();
+        }
+
+        Map<InputFile, String> cacheHashes = createCacheHashes(fs.baseDir(), pomXmls, settings);
+        Map<InputFile, List<Dependency>> dependenciesByPom = new HashMap<>();
+        for (InputFile pomXml : pomXmls)
+        {
+            List<Dependency> cachedDependencies =
+                dependencyCache.get(getCacheManifest(pomXml), cacheHashes.get(pomXml));
+            if (cachedDependencies != null)
+            {
+                cachedDependencies.forEach(dependency -> setLocation(dependency, pomXml));
+                dependenciesByPom.put(pomXml, cachedDependencies);
+                statistics.increment(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS);
+            }
+        }
 
-            LOGGER.info("Scanning for Maven dependencies (POM: {})", pomXml.uri());
-            try (Stream<Dependency> dependencies = readDependencyList(new File(pomXml.uri()), settings))
+        List<InputFile> unresolvedPomXmls = pomXmls.stream()
+            .filter(pomXml -> !dependenciesByPom.containsKey(pomXml))
+            .collect(Collectors.toList());
+        if (unresolvedPomXmls.isEmpty())
+        {
+            LOGGER.info("No Maven POM changed - using the dependencies of the previous analysis");
+        }
+        else
+        {
+            if (!dependenciesByPom.isEmpty())
             {
-                dependencies
-                    .map(this.loadLicenseFromPom(licenseMappingService.getLicenseMap(), settings))
-                    .forEach(dependency ->
-                    {
-                        dependency.setInputComponent(pomXml);
-                        dependency.setTextRange(pomXml.newRange(1, 0, pomXml.lines(), 0));
-                        allDependencies.add(dependency);
-                    });
+                LOGGER.info("Resolving {} changed Maven POMs, using the previous dependencies of {} POMs",
+                    unresolvedPomXmls.size(), dependenciesByPom.size());
             }
+            dependenciesByPom.putAll(resolve(fs.baseDir(), unresolvedPomXmls, settings, cacheHashes));
         }
 
+        // merge in POM order (not completion order) so the result does not depend on scheduling
+        Set<Dependency> allDependencies = new LinkedHashSet<>();
+        for (InputFile pomXml : pomXmls)
+        {
+            allDependencies.addAll(dependenciesByPom.getOrDefault(pomXml, Collections.emptyList()));
+        }
         return allDependencies;
     }
 
-    private static Stream<Dependency> readDependencyList(File pomXml, MavenSettings settings)
+    private Map<InputFile, List<Dependency>> resolve(File baseDir, List<InputFile> pomXmls, MavenSettings settings,
+        Map<InputFile, String> cacheHashes)
+    {
+        PersistentPomLicenseCache persistentCache =
+            licenseCacheFile != null ? PersistentPomLicenseCache.load(licenseCacheFile) : null;
+        LicenseFinder licenseFinder = new LicenseFinder(settings, new PomLicenseCache(), persistentCache, statistics);
+        Function<Dependency, Dependency> licenseLoader =
+            loadLicenseFromPom(licenseMappingService.getLicenseMatcher(), licenseFinder);
+        Map<InputFile, List<Dependency>> dependenciesByPom = new HashMap<>();
+
+        if (reactor)
+        {
+            InputFile rootPom = findRootPom(baseDir, pomXmls);
+            if (rootPom != null)
+            {
+                dependenciesByPom.putAll(scanReactor(rootPom, pomXmls, settings, licenseLoader, cacheHashes));
+            }
+            else
+            {
+                LOGGER.info("No root POM found in {} - using one Maven invocation per POM", baseDir);
+            }
+        }
+
+        List<InputFile> remainingPomXmls = pomXmls.stream()
+            .filter(pomXml -> !dependenciesByPom.containsKey(pomXml))
+            .collect(Collectors.toList());
+        dependenciesByPom.putAll(scanPoms(remainingPomXmls, settings, licenseLoader, cacheHashes));
+
+        PomLicenseCache cache = licenseFinder.getCache();
+        LOGGER.debug("POM license cache: {} hits, {} misses, {} entries", cache.getHits(), cache.getMisses(),
+            cache.size());
+        if (persistentCache != null)
+        {
+            persistentCache.save();
+        }
+
+        return dependenciesByPom;
+    }
+
+    /**
+     * The dependency list of a POM depends on the POM and its parents, the Maven settings and the license mappings -
+     * so only the POMs affected by a change are resolved again. In reactor mode the modules are resolved against each
+     * other, so there the hash of each POM covers all POMs of the module.
+     * <p>
+     * Other modules of the project are taken from the local repository when a single POM is resolved. Their released
+     * versions do not change, and SNAPSHOT dependencies are not cached at all.
+     *
+     * @return the hash for the {@link DependencyCache} of each POM - empty if the cache is not used
+     */
+    private Map<InputFile, String> createCacheHashes(File baseDir, List<InputFile> pomXmls, MavenSettings settings)
+    {
+        if (!dependencyCache.isEnabled())
+        {
+            return Collections.emptyMap();
+        }
+
+        try
+        {
+            DependencyCache.Key settingsKey = DependencyCache.newKey()
+                .add(licenseMappingService.getMappingsHash())
+                .add(System.getProperty(MAVEN_REPO_LOCAL))
+                .addFile(settings.userSettings != null
+                    ? Paths.get(settings.userSettings)
+                    : Paths.get(System.getProperty("user.home"), ".m2", "settings.xml"))
+                .addFile(baseDir.toPath().resolve(".mvn").resolve("maven.config"));
+            if (settings.globalSettings != null)
+            {
+                settingsKey.addFile(Paths.get(settings.globalSettings));
+            }
+            else if (System.getProperty("maven.home") != null)
+            {
+                settingsKey.addFile(Paths.get(System.getProperty("maven.home"), "conf", "settings.xml"));
+            }
+            String settingsHash = settingsKey.build();
+
+            Map<InputFile, String> cacheHashes = new HashMap<>();
+            if (reactor)
+            {
+                DependencyCache.Key key = DependencyCache.newKey().add(settingsHash);
+                List<Path> pomPaths = pomXmls.stream()
+                    .map(pomXml -> new File(pomXml.uri()).toPath())
+                    .sorted()
+                    .collect(Collectors.toList());
+                for (Path pomPath : pomPaths)
+                {
+                    key.addFile(pomPath);
+                }
+                String hash = key.build();
+                pomXmls.forEach(pomXml -> cacheHashes.put(pomXml, hash));
+                return cacheHashes;
+            }
+
+            for (InputFile pomXml : pomXmls)
+            {
+                Path pomPath = new File(pomXml.uri()).toPath();
+                DependencyCache.Key key = DependencyCache.newKey().add(settingsHash).addFile(pomPath);
+                for (Path parentPomPath : findParentPoms(pomPath))
+                {
+                    key.addFile(parentPomPath);
+                }
+                cacheHashes.put(pomXml, key.build());
+            }
+            return cacheHashes;
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Not using the dependency cache: {}", e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * @return the local parent POMs of a POM (following <code>relativePath</code>, by default
+     *     <code>../pom.xml</code>) - a parent that is not found locally comes from the repository
+     */
+    static List<Path> findParentPoms(Path pomPath)
     {
+        List<Path> parentPomPaths = new ArrayList<>();
+        Set<Path> visited = new HashSet<>();
+        Path current = pomPath.toAbsolutePath().normalize();
+        visited.add(current);
+        while (true)
+        {
+            Model model;
+            try (InputStream in = Files.newInputStream(current))
+            {
+                model = new MavenXpp3Reader().read(in, false);
+            }
+            catch (IOException | XmlPullParserException e)
+            {
+                LOGGER.debug("Could not read parent of Maven POM {}: {}", current, e.getMessage());
+                return parentPomPaths;
+            }
+            if (model.getParent() == null || StringUtils.isEmpty(model.getParent().getRelativePath()))
+            {
+                return parentPomPaths;
+            }
+
+            Path parentPomPath = current.getParent().resolve(model.getParent().getRelativePath()).normalize();
+            if (Files.isDirectory(parentPomPath))
+            {
+                parentPomPath = parentPomPath.resolve("pom.xml");
+            }
+            if (!Files.isRegularFile(parentPomPath) || !visited.add(parentPomPath))
+            {
+                return parentPomPaths;
+            }
+            parentPomPaths.add(parentPomPath);
+            current = parentPomPath;
+        }
+    }
+
+    private static String getCacheManifest(InputFile pomXml)
+    {
+        return "maven:" + pomXml.uri();
+    }
+
+    /**
+     * Stores the dependencies of a POM resolved by Maven - unless they might change without any change of the POMs:
+     * SNAPSHOT versions or POMs missing in the local repository (unknown license).
+     */
+    private void cacheDependencies(InputFile pomXml, Map<InputFile, String> cacheHashes, List<Dependency> dependencies)
+    {
+        boolean cacheable = dependencies.stream().noneMatch(dependency ->
+            dependency.getVersion() == null || dependency.getVersion().endsWith("-SNAPSHOT")
+                || dependency.getLicense() == null && dependency.getPomPath() == null);
+        if (cacheable)
+        {
+            dependencyCache.put(getCacheManifest(pomXml), cacheHashes.get(pomXml), dependencies);
+        }
+    }
+
+    private Map<InputFile, List<Dependency>> scanPoms(List<InputFile> pomXmls, MavenSettings settings,
+        Function<Dependency, Dependency> licenseLoader, Map<InputFile, String> cacheHashes)
+    {
+        Map<InputFile, List<Dependency>> dependenciesByPom = new HashMap<>();
+
+        if (parallelism == 1 || pomXmls.size() <= 1)
+        {
+            for (InputFile pomXml : pomXmls)
+            {
+                dependenciesByPom.put(pomXml, scanPom(pomXml, settings, licenseLoader, cacheHashes));
+            }
+            return dependenciesByPom;
+        }
+
+        int poolSize = Math.min(parallelism, pomXmls.size());
+        LOGGER.info("Scanning {} Maven POMs with {} parallel invocations", pomXmls.size(), poolSize);
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try
+        {
+            List<Future<List<Dependency>>> results = pomXmls.stream()
+                .map(pomXml -> executor.submit(() -> scanPom(pomXml, settings, licenseLoader, cacheHashes)))
+                .collect(Collectors.toList());
+
+            for (int i = 0; i < results.size(); i++)
+            {
+                try
+                {
+                    dependenciesByPom.put(pomXmls.get(i), results.get(i).get());
+                }
+                catch (ExecutionException e)
+                {
+                    // fail like the sequential scan - a missing POM would silently drop its dependencies
+                    if (e.getCause() instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    if (e.getCause() instanceof Error)
+                    {
+                        throw (Error) e.getCause();
+                    }
+                    throw new IllegalStateException("Could not scan Maven POM " + pomXmls.get(i).uri(), e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning Maven dependencies", e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return dependenciesByPom;
+    }
+
+    private List<Dependency> scanPom(InputFile pomXml, MavenSettings settings,
+        Function<Dependency, Dependency> licenseLoader, Map<InputFile, String> cacheHashes)
+    {
+        LOGGER.info("Scanning for Maven dependencies (POM: {})", pomXml.uri());
+
         Path tempFile = createTempFile();
         if (tempFile == null)
         {
-            return Stream.empty();
+            return Collections.emptyList();
         }
 
-        InvocationRequest request = new DefaultInvocationRequest();
+        InvocationRequest request = createRequest(new File(pomXml.uri()), settings, tempFile.toAbsolutePath().toString());
         request.setRecursive(false);
+        boolean success = invokeMaven(request);
+
+        List<Dependency> dependencies = readDependencyList(tempFile, pomXml, licenseLoader);
+        if (success)
+        {
+            cacheDependencies(pomXml, cacheHashes, dependencies);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Resolves all modules of the reactor with one recursive invocation of the root POM. The output file is
+     * relative, so Maven writes it into each module's directory - from there it is mapped back to the module's
+     * POM. POMs without an output file (e.g. not part of the reactor) are not contained in the result. Afterwards the
+     * output files are deleted from all modules, including those which are not part of the analysis.
+     */
+    private Map<InputFile, List<Dependency>> scanReactor(InputFile rootPom, List<InputFile> pomXmls,
+        MavenSettings settings, Function<Dependency, Dependency> licenseLoader, Map<InputFile, String> cacheHashes)
+    {
+        LOGGER.info("Scanning for Maven dependencies in reactor (POM: {})", rootPom.uri());
+
+        String outputFileName = "licensecheck-dependencies-" + UUID.randomUUID() + ".txt";
+        String outputFile = "target" + File.separator + outputFileName;
+        File rootPomFile = new File(rootPom.uri());
+        InvocationRequest request = createRequest(rootPomFile, settings, outputFile);
+        request.setRecursive(true);
+        request.setFailureBehavior(InvocationRequest.REACTOR_FAIL_AT_END);
+
+        Map<InputFile, List<Dependency>> dependenciesByPom = new HashMap<>();
+        try
+        {
+            invokeMaven(request);
+
+            for (InputFile pomXml : pomXmls)
+            {
+                Path moduleOutputFile = new File(pomXml.uri()).getParentFile().toPath().resolve(outputFile);
+                if (Files.exists(moduleOutputFile))
+                {
+                    // only written if the module was resolved successfully
+                    List<Dependency> dependencies = readDependencyList(moduleOutputFile, pomXml, licenseLoader);
+                    cacheDependencies(pomXml, cacheHashes, dependencies);
+                    dependenciesByPom.put(pomXml, dependencies);
+                }
+            }
+        }
+        finally
+        {
+            // also written for reactor modules which are not part of the analysis
+            deleteReactorOutput(rootPomFile.getParentFile().toPath(), outputFileName);
+        }
+
+        LOGGER.info("Resolved {} of {} Maven POMs in reactor", dependenciesByPom.size(), pomXmls.size());
+        return dependenciesByPom;
+    }
+
+    private static InputFile findRootPom(File baseDir, List<InputFile> pomXmls)
+    {
+        Path rootPomPath = new File(baseDir, "pom.xml").toPath().toAbsolutePath().normalize();
+        return pomXmls.stream()
+            .filter(pomXml -> new File(pomXml.uri()).toPath().toAbsolutePath().normalize().equals(rootPomPath))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static InvocationRequest createRequest(File pomXml, MavenSettings settings, String outputFile)
+    {
+        InvocationRequest request = new DefaultInvocationRequest();
         request.setPomFile(pomXml);
         request.setGoals(Collections.singletonList("dependency:list"));
         if (settings.userSettings != null)
@@ -102,7 +481,7 @@ public class MavenDependencyScanner implements Scanner
             LOGGER.info("Using global settings {}", settings.globalSettings);
         }
         Properties properties = new Properties();
-        properties.setProperty("outputFile", tempFile.toAbsolutePath().toString());
+        properties.setProperty("outputFile", outputFile);
         properties.setProperty("outputAbsoluteArtifactFilename", "true");
         properties.setProperty("includeScope", "runtime"); // only runtime (scope compile + runtime)
         if (System.getProperty(MAVEN_REPO_LOCAL) != null)
@@ -110,12 +489,19 @@ public class MavenDependencyScanner implements Scanner
             properties.setProperty(MAVEN_REPO_LOCAL, System.getProperty(MAVEN_REPO_LOCAL));
         }
         request.setProperties(properties);
-
-        return invokeMaven(request, tempFile);
+        return request;
     }
 
-    private static Stream<Dependency> invokeMaven(InvocationRequest request, Path mavenOutputFile)
+    /**
+     * @return <code>true</code> if Maven succeeded
+     */
+    private boolean invokeMaven(InvocationRequest request)
     {
+        MavenInvocationEvent event = new MavenInvocationEvent();
+        event.begin();
+        int exitCode = -1;
+        long start = System.nanoTime();
+        statistics.increment(AnalysisStatistics.Counter.PROCESSES_FORKED);
         try
         {
             StringBuilder mavenExecutionErrors = new StringBuilder();
@@ -129,25 +515,109 @@ public class MavenDependencyScanner implements Scanner
                 }
             });
             InvocationResult result = invoker.execute(request);
+            exitCode = result.getExitCode();
             if (result.getExitCode() != 0)
             {
                 LOGGER.warn("Could not get dependency list via maven", result.getExecutionException());
                 LOGGER.warn(mavenExecutionErrors.toString());
             }
-            return Files.lines(mavenOutputFile)
-                .filter(StringUtils::isNotBlank)
-                .map(MavenDependencyScanner::findDependency)
-                .filter(Objects::nonNull);
         }
         catch (MavenInvocationException e)
         {
             LOGGER.warn("Could not get dependency list via maven", e);
         }
+        finally
+        {
+            statistics.addTime(AnalysisStatistics.Phase.MAVEN_INVOCATION, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.setPom(request.getPomFile().getPath());
+                event.setReactor(request.isRecursive());
+                event.setExitCode(exitCode);
+                event.commit();
+            }
+        }
+        return exitCode == 0;
+    }
+
+    private List<Dependency> readDependencyList(Path mavenOutputFile, InputFile pomXml,
+        Function<Dependency, Dependency> licenseLoader)
+    {
+        statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+        try (Stream<String> lines = Files.lines(mavenOutputFile))
+        {
+            return lines
+                .filter(StringUtils::isNotBlank)
+                .map(MavenDependencyScanner::findDependency)
+                .filter(Objects::nonNull)
+                .map(licenseLoader)
+                .peek(dependency -> setLocation(dependency, pomXml))
+                .collect(Collectors.toList());
+        }
         catch (Exception e)
         {
             LOGGER.warn("Error reading file", e);
         }
-        return Stream.empty();
+        return Collections.emptyList();
+    }
+
+    private static void setLocation(Dependency dependency, InputFile pomXml)
+    {
+        dependency.setInputComponent(pomXml);
+        dependency.setTextRange(pomXml.newRange(1, 0, pomXml.lines(), 0));
+    }
+
+    /**
+     * Deletes the output files of a reactor invocation from the <code>target</code> directories below the root
+     * module. <code>target</code> directories are not searched further, neither are hidden directories and
+     * <code>node_modules</code>.
+     */
+    private static void deleteReactorOutput(Path rootDir, String outputFileName)
+    {
+        try
+        {
+            Files.walkFileTree(rootDir, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                {
+                    String dirName = dir.getFileName().toString();
+                    if (dirName.equals("target"))
+                    {
+                        deleteQuietly(dir.resolve(outputFileName));
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (!dir.equals(rootDir) && (dirName.startsWith(".") || dirName.equals("node_modules")))
+                    {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e)
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Could not delete the Maven output files below {}: {}", rootDir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Could not delete {}", file);
+        }
     }
 
     private static Path createTempFile()
@@ -226,7 +696,8 @@ public class MavenDependencyScanner implements Scanner
         return items;
     }
 
-    private Function<Dependency, Dependency> loadLicenseFromPom(Map<Pattern, String> licenseMap, MavenSettings settings)
+    private static Function<Dependency, Dependency> loadLicenseFromPom(LicenseMatcher licenseMatcher,
+        LicenseFinder licenseFinder)
     {
         return (Dependency dependency) ->
         {
@@ -236,18 +707,17 @@ public class MavenDependencyScanner implements Scanner
                 return dependency;
             }
 
-            return loadLicense(licenseMap, settings, dependency);
+            return loadLicense(licenseMatcher, licenseFinder, dependency);
         };
     }
 
-    private static Dependency loadLicense(Map<Pattern, String> licenseMap, MavenSettings settings,
+    private static Dependency loadLicense(LicenseMatcher licenseMatcher, LicenseFinder licenseFinder,
         Dependency dependency)
     {
         String pomPath = dependency.getPomPath();
         if (pomPath != null)
         {
-            List<License> licenses = LicenseFinder.getLicenses(new File(pomPath), settings.userSettings,
-                settings.globalSettings);
+            List<License> licenses = licenseFinder.getLicenses(dependency, new File(pomPath));
             if (licenses.isEmpty())
             {
                 LOGGER.info("No licenses found in dependency {}", dependency.getName());
@@ -256,13 +726,13 @@ public class MavenDependencyScanner implements Scanner
 
             for (License license : licenses)
             {
-                licenseMatcher(licenseMap, dependency, license);
+                matchLicense(licenseMatcher, dependency, license);
             }
         }
         return dependency;
     }
 
-    private static void licenseMatcher(Map<Pattern, String> licenseMap, Dependency dependency, License license)
+    private static void matchLicense(LicenseMatcher licenseMatcher, Dependency dependency, License license)
     {
         String licenseName = license.getName();
         if (StringUtils.isBlank(licenseName))
@@ -271,13 +741,11 @@ public class MavenDependencyScanner implements Scanner
             return;
         }
 
-        for (Entry<Pattern, String> entry : licenseMap.entrySet())
+        String mappedLicense = licenseMatcher.match(licenseName);
+        if (mappedLicense != null)
         {
-            if (entry.getKey().matcher(licenseName).matches())
-            {
-                dependency.setLicense(entry.getValue());
-                return;
-            }
+            dependency.setLicense(mappedLicense);
+            return;
         }
 
         LOGGER.info("No licenses match found for '{}'", licenseName);
@@ -0,0 +1,115 @@
+package at.porscheinformatik.sonarqube.licensecheck.maven;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.json.JsonObject;
+import javax.json.stream.JsonGenerator;
+
+import org.apache.maven.model.License;
+
+import at.porscheinformatik.sonarqube.licensecheck.utils.JsonFileCache;
+
+/**
+ * Cache of resolved POM licenses which is persisted between analyses. Only release versions are stored (their POMs
+ * are immutable) and an entry is only used if size and modification time of the POM file did not change. Empty
+ * results are not stored as they might be caused by a parent POM missing in the local repository.
+ */
+class PersistentPomLicenseCache extends JsonFileCache<PersistentPomLicenseCache.Entry>
+{
+    static final int MAX_ENTRIES = 50_000;
+
+    private PersistentPomLicenseCache(Path cacheFile)
+    {
+        super(cacheFile, "POM license cache", "gav", MAX_ENTRIES);
+    }
+
+    /**
+     * @param cacheFile the cache file - does not need to exist
+     * @return the cache with all entries of the file
+     */
+    static PersistentPomLicenseCache load(Path cacheFile)
+    {
+        PersistentPomLicenseCache cache = new PersistentPomLicenseCache(cacheFile);
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * @param gav groupId:artifactId:version
+     * @param pomFile the POM file of the artifact
+     * @return the licenses or <code>null</code> if there is no valid entry
+     */
+    List<License> get(String gav, File pomFile)
+    {
+        Entry entry = getEntry(gav);
+        if (entry == null)
+        {
+            return null;
+        }
+        if (entry.size != pomFile.length() || entry.lastModified != pomFile.lastModified())
+        {
+            removeEntry(gav);
+            return null;
+        }
+        markUsed(gav);
+        return entry.licenses;
+    }
+
+    void put(String gav, File pomFile, List<License> licenses)
+    {
+        if (licenses.isEmpty() || gav.endsWith("-SNAPSHOT") || !pomFile.isFile())
+        {
+            return;
+        }
+        putEntry(gav, new Entry(pomFile.length(), pomFile.lastModified(), licenses));
+    }
+
+    @Override
+    protected Entry readEntry(JsonObject entryJson)
+    {
+        List<License> licenses = new ArrayList<>();
+        for (JsonObject licenseJson : entryJson.getJsonArray("licenses").getValuesAs(JsonObject.class))
+        {
+            License license = new License();
+            license.setName(licenseJson.getString("name", null));
+            license.setUrl(licenseJson.getString("url", null));
+            licenses.add(license);
+        }
+        return new Entry(entryJson.getJsonNumber("size").longValue(),
+            entryJson.getJsonNumber("lastModified").longValue(), Collections.unmodifiableList(licenses));
+    }
+
+    @Override
+    protected void writeEntry(JsonGenerator generator, Entry entry)
+    {
+        generator.write("size", entry.size);
+        generator.write("lastModified", entry.lastModified);
+        generator.writeStartArray("licenses");
+        for (License license : entry.licenses)
+        {
+            generator.writeStartObject();
+            writeIfNotNull(generator, "name", license.getName());
+            writeIfNotNull(generator, "url", license.getUrl());
+            generator.writeEnd();
+        }
+        generator.writeEnd();
+    }
+
+    static final class Entry
+    {
+        private final long size;
+        private final long lastModified;
+        private final List<License> licenses;
+
+        private Entry(long size, long lastModified, List<License> licenses)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.licenses = licenses;
+        }
+    }
+}
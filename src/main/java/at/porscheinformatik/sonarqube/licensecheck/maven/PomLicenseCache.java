@@ -0,0 +1,80 @@
+package at.porscheinformatik.sonarqube.licensecheck.maven;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.model.License;
+
+/**
+ * Bounded in-memory cache of the licenses of a POM (including the ones inherited from its parents), keyed by
+ * groupId:artifactId:version. One instance is shared by all POMs of a scan, so common parents are only parsed once.
+ */
+class PomLicenseCache
+{
+    static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final Map<String, List<License>> licensesByGav;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    PomLicenseCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    PomLicenseCache(int maxSize)
+    {
+        this.licensesByGav = Collections.synchronizedMap(new LinkedHashMap<String, List<License>>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<License>> eldest)
+            {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * @param gav groupId:artifactId:version
+     * @return the cached licenses or <code>null</code> if the POM has not been resolved yet
+     */
+    List<License> get(String gav)
+    {
+        List<License> licenses = licensesByGav.get(gav);
+        if (licenses == null)
+        {
+            misses.incrementAndGet();
+        }
+        else
+        {
+            hits.incrementAndGet();
+        }
+        return licenses;
+    }
+
+    void put(String gav, List<License> licenses)
+    {
+        licensesByGav.put(gav, Collections.unmodifiableList(new ArrayList<>(licenses)));
+    }
+
+    int size()
+    {
+        return licensesByGav.size();
+    }
+
+    long getHits()
+    {
+        return hits.get();
+    }
+
+    long getMisses()
+    {
+        return misses.get();
+    }
+}
@@ -5,8 +5,16 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -21,10 +29,13 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import at.porscheinformatik.sonarqube.licensecheck.AnalysisStatistics;
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyCache;
 import at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition;
 import at.porscheinformatik.sonarqube.licensecheck.Scanner;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.npm.PackageLockReader.LockedPackage;
 
 public class PackageJsonDependencyScanner implements Scanner
 {
@@ -32,11 +43,38 @@ public class PackageJsonDependencyScanner implements Scanner
 
     private final LicenseMappingService licenseMappingService;
     private final boolean resolveTransitiveDeps;
+    private final boolean useLockfile;
+    private final AnalysisStatistics statistics;
+    private final DependencyCache dependencyCache;
 
     public PackageJsonDependencyScanner(LicenseMappingService licenseMappingService, boolean resolveTransitiveDeps)
+    {
+        this(licenseMappingService, resolveTransitiveDeps, false);
+    }
+
+    public PackageJsonDependencyScanner(LicenseMappingService licenseMappingService, boolean resolveTransitiveDeps,
+        boolean useLockfile)
+    {
+        this(licenseMappingService, resolveTransitiveDeps, useLockfile, new AnalysisStatistics(),
+            DependencyCache.disabled());
+    }
+
+    /**
+     * @param licenseMappingService the license mapping
+     * @param resolveTransitiveDeps also scan the dependencies of dependencies
+     * @param useLockfile read the dependencies from <code>package-lock.json</code> (or
+     *     <code>npm-shrinkwrap.json</code>) instead of <code>node_modules</code> if possible
+     * @param statistics counts the files read
+     * @param dependencyCache dependencies read from unchanged lockfiles in previous analyses
+     */
+    public PackageJsonDependencyScanner(LicenseMappingService licenseMappingService, boolean resolveTransitiveDeps,
+        boolean useLockfile, AnalysisStatistics statistics, DependencyCache dependencyCache)
     {
         this.licenseMappingService = licenseMappingService;
         this.resolveTransitiveDeps = resolveTransitiveDeps;
+        this.useLockfile = useLockfile;
+        this.statistics = statistics;
+        this.dependencyCache = dependencyCache;
     }
 
     @Override
@@ -62,6 +100,7 @@ public class PackageJsonDependencyScanner implements Scanner
     {
         Set<Dependency> dependencies = new HashSet<>();
 
+        statistics.increment(AnalysisStatistics.Counter.FILES_READ);
         try (InputStream fis = packageJsonFile.inputStream();
             JsonReader jsonReader = Json.createReader(fis))
         {
@@ -70,7 +109,11 @@ public class PackageJsonDependencyScanner implements Scanner
             JsonObject packageJsonDependencies = packageJson.getJsonObject("dependencies");
             if (packageJsonDependencies != null)
             {
-                scanDependencies(baseDir, packageJsonDependencies.keySet(), dependencies);
+                if (!useLockfile
+                    || !scanLockfile(baseDir, packageJsonFile, packageJsonDependencies.keySet(), dependencies))
+                {
+                    scanDependencies(baseDir, packageJsonDependencies.keySet(), dependencies);
+                }
                 dependencies.forEach(dependency ->
                 {
                     dependency.setInputComponent(packageJsonFile);
@@ -86,82 +129,165 @@ public class PackageJsonDependencyScanner implements Scanner
         return dependencies;
     }
 
-    private void scanDependencies(File baseDir, Set<String> packageNames, Set<Dependency> dependencies)
+    /**
+     * @return <code>false</code> if there is no lockfile with a <code>packages</code> section (version 2 or later)
+     */
+    private boolean scanLockfile(File baseDir, InputFile packageJsonFile, Set<String> packageNames,
+        Set<Dependency> dependencies)
     {
-        LOGGER.info("Scanning NPM packages " + packageNames);
+        File lockfile = new File(baseDir, "npm-shrinkwrap.json");
+        if (!lockfile.exists())
+        {
+            lockfile = new File(baseDir, "package-lock.json");
+        }
+        if (!lockfile.exists())
+        {
+            LOGGER.info("No package-lock.json found in {} - scanning node_modules", baseDir);
+            return false;
+        }
+
+        // all package.json files of the module use the same lockfile, but with their own direct dependencies
+        String cacheManifest = "npm:" + lockfile.getAbsolutePath() + "#" + packageJsonFile.uri();
+        String cacheHash = createCacheHash(lockfile, packageNames);
+        List<Dependency> cachedDependencies = dependencyCache.get(cacheManifest, cacheHash);
+        if (cachedDependencies != null)
+        {
+            LOGGER.info("{} has not changed - using the NPM packages of the previous analysis", lockfile);
+            statistics.increment(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS);
+            dependencies.addAll(cachedDependencies);
+            return true;
+        }
+
+        Map<String, LockedPackage> lockedPackages;
+        statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+        try (InputStream fis = new FileInputStream(lockfile))
+        {
+            lockedPackages = PackageLockReader.readPackages(fis);
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Could not read " + lockfile + " - scanning node_modules", e);
+            return false;
+        }
+        if (lockedPackages == null)
+        {
+            LOGGER.info("{} has no license information (lockfileVersion 1) - scanning node_modules", lockfile);
+            return false;
+        }
+
+        LOGGER.info("Scanning NPM packages from {}", lockfile);
+        Collection<LockedPackage> packages;
+        if (resolveTransitiveDeps)
+        {
+            packages = lockedPackages.values();
+        }
+        else
+        {
+            packages = packageNames.stream()
+                .map(packageName -> lockedPackages.get("node_modules/" + packageName))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        }
 
-        for (String packageName : packageNames)
+        Set<Dependency> lockedDependencies = new HashSet<>();
+        for (LockedPackage lockedPackage : packages)
         {
-            if (dependencies.stream().anyMatch(d -> packageName.equals(d.getName())))
+            if (lockedPackage.isDev() || lockedPackage.isLink())
             {
-                LOGGER.debug("Package {} has already been encountered and will not be scanned again", packageName);
                 continue;
             }
+            lockedDependencies.add(new Dependency(lockedPackage.getName(), lockedPackage.getVersion(),
+                licenseMappingService.mapLicense(lockedPackage.getLicense()), LicenseCheckRulesDefinition.LANG_JS));
+        }
+        dependencyCache.put(cacheManifest, cacheHash, lockedDependencies);
+        dependencies.addAll(lockedDependencies);
+        return true;
+    }
+
+    /**
+     * @return the hash of the lockfile, the direct dependencies and the settings for the {@link DependencyCache} or
+     *     <code>null</code> if the cache is not used
+     */
+    private String createCacheHash(File lockfile, Set<String> packageNames)
+    {
+        if (!dependencyCache.isEnabled())
+        {
+            return null;
+        }
 
-            File packageJsonFile = new File(baseDir, "node_modules/" + packageName + "/package.json");
-            if (!packageJsonFile.exists())
+        DependencyCache.Key key = DependencyCache.newKey()
+            .add(licenseMappingService.getMappingsHash())
+            .add(resolveTransitiveDeps);
+        new TreeSet<>(packageNames).forEach(key::add);
+        try
+        {
+            statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+            return key.addFile(lockfile.toPath()).build();
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Not using the dependency cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Visits the packages with a work queue. Each package is resolved like Node.js does: the <code>node_modules</code>
+     * of the requiring package are tried first, then those of its parents up to the project directory.
+     */
+    private void scanDependencies(File baseDir, Set<String> packageNames, Set<Dependency> dependencies)
+    {
+        LOGGER.info("Scanning NPM packages " + packageNames);
+
+        Deque<PackageRequest> queue = new ArrayDeque<>();
+        packageNames.forEach(packageName -> queue.add(new PackageRequest(baseDir, packageName)));
+        Set<File> resolvedDirs = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+
+        while (!queue.isEmpty())
+        {
+            PackageRequest request = queue.poll();
+            File packageDir = resolvePackage(baseDir, request.requiredBy, request.packageName);
+            if (packageDir == null)
             {
                 LOGGER.warn("No package.json file found for package {} in node_modules - skipping dependency",
-                        packageName);
+                    request.packageName);
+                continue;
+            }
+            if (!resolvedDirs.add(packageDir))
+            {
                 continue;
             }
 
-            try (InputStream fis = new FileInputStream(packageJsonFile);
+            statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+            try (InputStream fis = new FileInputStream(new File(packageDir, "package.json"));
                 JsonReader jsonReader = Json.createReader(fis))
             {
                 JsonObject packageJson = jsonReader.readObject();
-                if (packageJson != null)
+                if (packageJson == null)
                 {
-                    String license = "";
-                    if (packageJson.containsKey("license"))
-                    {
-                        final Object licenceObj = packageJson.get("license");
-                        if (licenceObj instanceof JsonObject)
-                        {
-                            license = ((JsonObject) licenceObj).getString("type", "");
-                        }
-                        else
-                        {
-                            license = packageJson.getString("license", "");
-                        }
-                    }
-                    else if (packageJson.containsKey("licenses"))
-                    {
-                        final JsonArray licenses = packageJson.getJsonArray("licenses");
-                        if (licenses.size() == 1)
-                        {
-                            license = licenses.getJsonObject(0).getString("type", "");
-                        }
-                        else if (licenses.size() > 1)
-                        {
-                            license = "(";
-                            for (JsonValue licenseObj : licenses)
-                            {
-                                if (licenseObj instanceof JsonObject)
-                                {
-                                    String licensePart = licenseObj.asJsonObject().getString("type", "");
-                                    if (!licensePart.trim().isEmpty())
-                                    {
-                                        license += license.length() > 1 ? (" OR " + licensePart) : licensePart;
-                                    }
-                                }
-                            }
-                            license = license.length() == 1 ? "" : (license + ")");
-                        }
-                    }
+                    continue;
+                }
 
-                    license = licenseMappingService.mapLicense(license);
+                String version = packageJson.getString("version", null);
+                if (!visited.add(request.packageName + "@" + version))
+                {
+                    LOGGER.debug("Package {}@{} has already been encountered and will not be scanned again",
+                        request.packageName, version);
+                    continue;
+                }
 
-                    dependencies.add(new Dependency(packageName, packageJson.getString("version", null), license,
-                        LicenseCheckRulesDefinition.LANG_JS));
+                String license = licenseMappingService.mapLicense(readLicense(packageJson));
+                dependencies.add(new Dependency(request.packageName, version, license,
+                    LicenseCheckRulesDefinition.LANG_JS));
 
-                    if (resolveTransitiveDeps)
+                if (resolveTransitiveDeps)
+                {
+                    JsonObject packageJsonDependencies = packageJson.getJsonObject("dependencies");
+                    if (packageJsonDependencies != null)
                     {
-                        JsonObject packageJsonDependencies = packageJson.getJsonObject("dependencies");
-                        if (packageJsonDependencies != null)
-                        {
-                            scanDependencies(baseDir, packageJsonDependencies.keySet(), dependencies);
-                        }
+                        packageJsonDependencies.keySet()
+                            .forEach(packageName -> queue.add(new PackageRequest(packageDir, packageName)));
                     }
                 }
             }
@@ -171,8 +297,87 @@ public class PackageJsonDependencyScanner implements Scanner
             }
             catch (Exception e)
             {
-                LOGGER.error("Could not check NPM package " + packageName, e);
+                LOGGER.error("Could not check NPM package " + request.packageName, e);
             }
         }
     }
+
+    /**
+     * @return the directory of the package or <code>null</code> if it is not installed
+     */
+    static File resolvePackage(File baseDir, File requiredBy, String packageName)
+    {
+        File dir = requiredBy;
+        while (dir != null)
+        {
+            if (!"node_modules".equals(dir.getName()))
+            {
+                File packageDir = new File(dir, "node_modules/" + packageName);
+                if (new File(packageDir, "package.json").exists())
+                {
+                    return packageDir;
+                }
+            }
+            if (dir.equals(baseDir))
+            {
+                break;
+            }
+            dir = dir.getParentFile();
+        }
+        return null;
+    }
+
+    private static String readLicense(JsonObject packageJson)
+    {
+        String license = "";
+        if (packageJson.containsKey("license"))
+        {
+            final Object licenceObj = packageJson.get("license");
+            if (licenceObj instanceof JsonObject)
+            {
+                license = ((JsonObject) licenceObj).getString("type", "");
+            }
+            else
+            {
+                license = packageJson.getString("license", "");
+            }
+        }
+        else if (packageJson.containsKey("licenses"))
+        {
+            final JsonArray licenses = packageJson.getJsonArray("licenses");
+            if (licenses.size() == 1)
+            {
+                license = licenses.getJsonObject(0).getString("type", "");
+            }
+            else if (licenses.size() > 1)
+            {
+                license = "(";
+                for (JsonValue licenseObj : licenses)
+                {
+                    if (licenseObj instanceof JsonObject)
+                    {
+                        String licensePart = licenseObj.asJsonObject().getString("type", "");
+                        if (!licensePart.trim().isEmpty())
+                        {
+                            license += license.length() > 1 ? (" OR " + licensePart) : licensePart;
+                        }
+                    }
+                }
+                license = license.length() == 1 ? "" : (license + ")");
+            }
+        }
+        return license;
+    }
+
+    private static final class PackageRequest
+    {
+        private final File requiredBy;
+        private final String packageName;
+
+        private PackageRequest(File requiredBy, String packageName)
+        {
+            this.requiredBy = requiredBy;
+            this.packageName = packageName;
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package at.porscheinformatik.sonarqube.licensecheck.npm;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/**
+ * Reads the <code>packages</code> section of a <code>package-lock.json</code> or <code>npm-shrinkwrap.json</code>
+ * (lockfile version 2 and 3) in one streamed pass. Lockfile version 1 has no such section (and no licenses).
+ */
+final class PackageLockReader
+{
+    private static final String NODE_MODULES = "node_modules/";
+
+    private PackageLockReader()
+    {
+    }
+
+    /**
+     * @param in the lockfile
+     * @return the installed packages by path (e.g. <code>node_modules/a/node_modules/b</code>) or <code>null</code> if
+     *     the lockfile has no <code>packages</code> section
+     */
+    static Map<String, LockedPackage> readPackages(InputStream in)
+    {
+        Map<String, LockedPackage> packages = null;
+
+        try (JsonParser parser = Json.createParser(in))
+        {
+            if (parser.next() != Event.START_OBJECT)
+            {
+                return null;
+            }
+
+            while (parser.next() == Event.KEY_NAME)
+            {
+                String key = parser.getString();
+                Event event = parser.next();
+                if ("packages".equals(key) && event == Event.START_OBJECT)
+                {
+                    packages = readPackages(parser);
+                }
+                else
+                {
+                    skip(parser, event);
+                }
+            }
+        }
+
+        return packages;
+    }
+
+    private static Map<String, LockedPackage> readPackages(JsonParser parser)
+    {
+        Map<String, LockedPackage> packages = new LinkedHashMap<>();
+        while (parser.next() == Event.KEY_NAME)
+        {
+            String path = parser.getString();
+            Event event = parser.next();
+            if (event == Event.START_OBJECT && path.contains(NODE_MODULES))
+            {
+                packages.put(path, readPackage(parser, path));
+            }
+            else
+            {
+                // the root project and workspace sources
+                skip(parser, event);
+            }
+        }
+        return packages;
+    }
+
+    private static LockedPackage readPackage(JsonParser parser, String path)
+    {
+        LockedPackage lockedPackage = new LockedPackage(path.substring(path.lastIndexOf(NODE_MODULES)
+            + NODE_MODULES.length()));
+
+        while (parser.next() == Event.KEY_NAME)
+        {
+            String key = parser.getString();
+            Event event = parser.next();
+            if ("version".equals(key) && event == Event.VALUE_STRING)
+            {
+                lockedPackage.version = parser.getString();
+            }
+            else if ("license".equals(key) && event == Event.VALUE_STRING)
+            {
+                lockedPackage.license = parser.getString();
+            }
+            else if ("license".equals(key) && event == Event.START_OBJECT)
+            {
+                // deprecated format {"type": "MIT", "url": "..."}
+                JsonObject license = parser.getObject();
+                lockedPackage.license = license.getString("type", "");
+            }
+            else if ("dev".equals(key))
+            {
+                lockedPackage.dev = event == Event.VALUE_TRUE;
+            }
+            else if ("link".equals(key))
+            {
+                lockedPackage.link = event == Event.VALUE_TRUE;
+            }
+            else
+            {
+                skip(parser, event);
+            }
+        }
+        return lockedPackage;
+    }
+
+    private static void skip(JsonParser parser, Event event)
+    {
+        if (event == Event.START_OBJECT)
+        {
+            parser.skipObject();
+        }
+        else if (event == Event.START_ARRAY)
+        {
+            parser.skipArray();
+        }
+    }
+
+    static final class LockedPackage
+    {
+        private final String name;
+        private String version;
+        private String license;
+        private boolean dev;
+        private boolean link;
+
+        LockedPackage(String name)
+        {
+            this.name = name;
+        }
+
+        String getName()
+        {
+            return name;
+        }
+
+        String getVersion()
+        {
+            return version;
+        }
+
+        /**
+         * @return the license - empty if unknown
+         */
+        String getLicense()
+        {
+            return license != null ? license : "";
+        }
+
+        /**
+         * @return <code>true</code> if only needed for development (via <code>devDependencies</code>)
+         */
+        boolean isDev()
+        {
+            return dev;
+        }
+
+        /**
+         * @return <code>true</code> for a symbolic link (e.g. to a workspace package)
+         */
+        boolean isLink()
+        {
+            return link;
+        }
+    }
+}
@@ -15,6 +15,8 @@ import org.sonar.api.config.Configuration;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 /**
@@ -31,14 +33,20 @@ public class ProjectLicenseSettingsService
      */
     private final PersistentSettings persistentSettings;
 
+    /**
+     * This is not official API - used to save all settings in one transaction
+     */
+    private final DbClient dbClient;
+
     private final Configuration configuration;
     private final ProjectLicenseService projectLicenseService;
 
-    public ProjectLicenseSettingsService(PersistentSettings persistentSettings, Configuration configuration,
-        ProjectLicenseService projectLicenseService)
+    public ProjectLicenseSettingsService(PersistentSettings persistentSettings, DbClient dbClient,
+        Configuration configuration, ProjectLicenseService projectLicenseService)
     {
         super();
         this.persistentSettings = persistentSettings;
+        this.dbClient = dbClient;
         this.configuration = configuration;
         this.projectLicenseService = projectLicenseService;
     }
@@ -56,26 +64,31 @@ public class ProjectLicenseSettingsService
 
     private void migrateOldSettings()
     {
-        saveSettings(projectLicenseService.getProjectLicenseListOld());
-        persistentSettings.saveProperty(PROJECT_LICENSE_KEY, null);
+        try (DbSession dbSession = dbClient.openSession(false))
+        {
+            saveSettings(dbSession, projectLicenseService.getProjectLicenseListOld());
+            persistentSettings.saveProperty(dbSession, PROJECT_LICENSE_KEY, null);
+            dbSession.commit();
+        }
     }
 
-    private void saveSettings(List<ProjectLicense> projectLicenses)
+    private void saveSettings(DbSession dbSession, List<ProjectLicense> projectLicenses)
     {
         Collections.sort(projectLicenses);
 
         String indexes = IntStream.range(1, projectLicenses.size() + 1)
             .mapToObj(Integer::toString)
             .collect(Collectors.joining(","));
-        persistentSettings.saveProperty(PROJECT_LICENSE_SET, indexes);
+        persistentSettings.saveProperty(dbSession, PROJECT_LICENSE_SET, indexes);
         for (int i = 0; i < projectLicenses.size(); i++)
         {
             ProjectLicense projectLicense = projectLicenses.get(i);
             String idxProp = "." + (i + 1) + ".";
-            persistentSettings.saveProperty(PROJECT_LICENSE_SET + idxProp + FIELD_PROJECT_KEY,
+            persistentSettings.saveProperty(dbSession, PROJECT_LICENSE_SET + idxProp + FIELD_PROJECT_KEY,
                 projectLicense.getProjectKey());
-            persistentSettings.saveProperty(PROJECT_LICENSE_SET + idxProp + FIELD_LICENSE, projectLicense.getLicense());
-            persistentSettings.saveProperty(PROJECT_LICENSE_SET + idxProp + FIELD_ALLOWED,
+            persistentSettings.saveProperty(dbSession, PROJECT_LICENSE_SET + idxProp + FIELD_LICENSE,
+                projectLicense.getLicense());
+            persistentSettings.saveProperty(dbSession, PROJECT_LICENSE_SET + idxProp + FIELD_ALLOWED,
                 projectLicense.getAllowed().toString());
         }
     }
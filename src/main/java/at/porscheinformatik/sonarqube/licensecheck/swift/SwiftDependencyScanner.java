@@ -2,38 +2,55 @@ package at.porscheinformatik.sonarqube.licensecheck.swift;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
-import javax.json.JsonReader;
 
 import org.codehaus.plexus.util.StringUtils;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import at.porscheinformatik.sonarqube.licensecheck.AnalysisStatistics;
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyCache;
 import at.porscheinformatik.sonarqube.licensecheck.LicenseCheckRulesDefinition;
 import at.porscheinformatik.sonarqube.licensecheck.Scanner;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
+import at.porscheinformatik.sonarqube.licensecheck.utils.JsonStreams;
 
 
 public class SwiftDependencyScanner implements Scanner
 {
     private static final Logger LOGGER = Loggers.get(SwiftDependencyScanner.class);
     private final LicenseMappingService licenseMappingService;
+    private final AnalysisStatistics statistics;
+    private final DependencyCache dependencyCache;
 
     public SwiftDependencyScanner(LicenseMappingService licenseMappingService)
+    {
+        this(licenseMappingService, new AnalysisStatistics(), DependencyCache.disabled());
+    }
+
+    /**
+     * @param licenseMappingService the license mapping
+     * @param statistics counts the files read
+     * @param dependencyCache dependencies read from unchanged reports in previous analyses
+     */
+    public SwiftDependencyScanner(LicenseMappingService licenseMappingService, AnalysisStatistics statistics,
+        DependencyCache dependencyCache)
     {
         this.licenseMappingService = licenseMappingService;
+        this.statistics = statistics;
+        this.dependencyCache = dependencyCache;
     }
 
     @Override
@@ -41,7 +58,7 @@ public class SwiftDependencyScanner implements Scanner
     {
         File moduleDir = context.fileSystem().baseDir();
 
-        Map<Pattern, String> defaultLicenseMap = licenseMappingService.getLicenseMap();
+        LicenseMatcher licenseMatcher = licenseMappingService.getLicenseMatcher();
 
         File licenseDetailsJsonFile = new File(moduleDir, "build" + File.separator + "reports" + File.separator + "license_finder" + File.separator + "swift-license-details.json");
 
@@ -52,46 +69,86 @@ public class SwiftDependencyScanner implements Scanner
             return Collections.emptySet();
         }
 
-        return readLicenseDetailsJson(licenseDetailsJsonFile)
-                .stream()
-                .map(d -> mapMavenDependencyToLicense(defaultLicenseMap, d))
-                .peek(d -> d.setInputComponent(context.module()))
+        String cacheManifest = "swift:" + licenseDetailsJsonFile.getAbsolutePath();
+        String cacheHash = createCacheHash(licenseDetailsJsonFile);
+        Set<Dependency> dependencies;
+        List<Dependency> cachedDependencies = dependencyCache.get(cacheManifest, cacheHash);
+        if (cachedDependencies != null)
+        {
+            LOGGER.info("{} has not changed - using the Swift dependencies of the previous analysis",
+                licenseDetailsJsonFile);
+            statistics.increment(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS);
+            dependencies = new HashSet<>(cachedDependencies);
+        }
+        else
+        {
+            Set<Dependency> readDependencies = new HashSet<>();
+            boolean complete = readLicenseDetailsJson(licenseDetailsJsonFile, readDependencies);
+            // the license is part of equals/hashCode - so collect the mapped dependencies into a new set
+            dependencies = readDependencies.stream()
+                .map(d -> mapMavenDependencyToLicense(licenseMatcher, d))
                 .collect(Collectors.toSet());
+            if (complete)
+            {
+                dependencyCache.put(cacheManifest, cacheHash, dependencies);
+            }
+        }
+
+        dependencies.forEach(d -> d.setInputComponent(context.module()));
+        return dependencies;
     }
 
-    private Set<Dependency> readLicenseDetailsJson(File licenseDetailsJsonFile)
+    /**
+     * @return the hash of the report and the license mappings for the {@link DependencyCache} or <code>null</code>
+     *     if the cache is not used
+     */
+    private String createCacheHash(File licenseDetailsJsonFile)
     {
-        final Set<Dependency> dependencySet = new HashSet<>();
+        if (!dependencyCache.isEnabled())
+        {
+            return null;
+        }
 
-        try (InputStream fis = new FileInputStream(licenseDetailsJsonFile);
-            JsonReader jsonReader = Json.createReader(fis))
+        try
         {
-            JsonObject jo = jsonReader.readObject();
-            JsonArray arr = jo.getJsonArray("dependencies");
-            prepareDependencySet(dependencySet, arr);
-            return dependencySet;
+            statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+            return DependencyCache.newKey()
+                .add(licenseMappingService.getMappingsHash())
+                .addFile(licenseDetailsJsonFile.toPath())
+                .build();
         }
-        catch (Exception e)
+        catch (IOException e)
         {
-            LOGGER.error("Problems reading Gradle license file {}: {}",
-                licenseDetailsJsonFile.getPath(), e.getMessage());
+            LOGGER.debug("Not using the dependency cache: {}", e.getMessage());
+            return null;
         }
-        return dependencySet;
     }
 
-    private void prepareDependencySet(Set<Dependency> dependencySet, JsonArray arr)
+    /**
+     * @return <code>true</code> if the whole report was read
+     */
+    private boolean readLicenseDetailsJson(File licenseDetailsJsonFile, Set<Dependency> dependencySet)
     {
-        for (javax.json.JsonValue entry : arr)
+        statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+        try (InputStream fis = new FileInputStream(licenseDetailsJsonFile))
+        {
+            JsonStreams.forEachArrayObject(fis,
+                Collections.singletonMap("dependencies", jsonDepObj -> addDependency(dependencySet, jsonDepObj)));
+            return true;
+        }
+        catch (Exception e)
         {
-            JsonObject jsonDepObj = entry.asJsonObject();
-            String moduleLicense = getModuleLicenseFromJsonObject(jsonDepObj);
-            String moduleLicenseUrl = null;
-           
-            Dependency dep = new Dependency(jsonDepObj.getString("name", null),
-                jsonDepObj.getString("version", null), moduleLicense, LicenseCheckRulesDefinition.LANG_SWIFT);
-            dep.setPomPath(moduleLicenseUrl);
-            dependencySet.add(dep);
+            LOGGER.error("Problems reading Swift license file {}: {}",
+                licenseDetailsJsonFile.getPath(), e.getMessage());
         }
+        return false;
+    }
+
+    private void addDependency(Set<Dependency> dependencySet, JsonObject jsonDepObj)
+    {
+        String moduleLicense = getModuleLicenseFromJsonObject(jsonDepObj);
+        dependencySet.add(new Dependency(jsonDepObj.getString("name", null),
+            jsonDepObj.getString("version", null), moduleLicense, LicenseCheckRulesDefinition.LANG_SWIFT));
     }
 
     private String getModuleLicenseFromJsonObject(JsonObject jsonDepObj)
@@ -115,7 +172,7 @@ public class SwiftDependencyScanner implements Scanner
         }
     }
 
-    private Dependency mapMavenDependencyToLicense(Map<Pattern, String> defaultLicenseMap, Dependency dependency)
+    private Dependency mapMavenDependencyToLicense(LicenseMatcher licenseMatcher, Dependency dependency)
     {
         if (StringUtils.isBlank(dependency.getLicense()))
         {
@@ -123,13 +180,10 @@ public class SwiftDependencyScanner implements Scanner
             return dependency;
         }
 
-        for (Map.Entry<Pattern, String> allowedDependency : defaultLicenseMap.entrySet())
+        String mappedLicense = licenseMatcher.match(dependency.getLicense());
+        if (mappedLicense != null)
         {
-            if (allowedDependency.getKey().matcher(dependency.getLicense()).matches())
-            {
-                dependency.setLicense(allowedDependency.getValue());
-                break;
-            }
+            dependency.setLicense(mappedLicense);
         }
         return dependency;
     }
@@ -0,0 +1,235 @@
+package at.porscheinformatik.sonarqube.licensecheck.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.stream.JsonGenerator;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Base of the caches which are persisted between analyses as a JSON file
+ * (<code>{"version": 1, "entries": [...]}</code>), every entry identified by a string key. The file is read on first
+ * use and replaced in one step on save. When the cache grows too big, only the entries used in this analysis are
+ * saved. Thread-safe.
+ *
+ * @param <E> the type of the entries
+ */
+public abstract class JsonFileCache<E>
+{
+    private static final Logger LOGGER = Loggers.get(JsonFileCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path cacheFile;
+    private final String name;
+    private final String keyName;
+    private final int maxEntries;
+    private final Map<String, E> entries = new ConcurrentHashMap<>();
+    private final Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean modified = new AtomicBoolean();
+    private volatile boolean loaded;
+
+    /**
+     * @param cacheFile the cache file (does not need to exist) - <code>null</code> disables the cache
+     * @param name the name of the cache in log messages
+     * @param keyName the JSON name of the key of an entry
+     * @param maxEntries the number of entries above which unused entries are dropped on save
+     */
+    protected JsonFileCache(Path cacheFile, String name, String keyName, int maxEntries)
+    {
+        this.cacheFile = cacheFile;
+        this.name = name;
+        this.keyName = keyName;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param entryJson the JSON of an entry, including the key
+     * @return the entry
+     */
+    protected abstract E readEntry(JsonObject entryJson);
+
+    /**
+     * Writes the values of an entry into the JSON object started for it (the key is already written).
+     */
+    protected abstract void writeEntry(JsonGenerator generator, E entry);
+
+    public boolean isEnabled()
+    {
+        return cacheFile != null;
+    }
+
+    protected E getEntry(String key)
+    {
+        load();
+        return entries.get(key);
+    }
+
+    protected void putEntry(String key, E entry)
+    {
+        load();
+        entries.put(key, entry);
+        usedKeys.add(key);
+        modified.set(true);
+    }
+
+    protected void removeEntry(String key)
+    {
+        load();
+        entries.remove(key);
+        modified.set(true);
+    }
+
+    /**
+     * Keeps the entry when the cache is pruned on save.
+     */
+    protected void markUsed(String key)
+    {
+        usedKeys.add(key);
+    }
+
+    public int size()
+    {
+        load();
+        return entries.size();
+    }
+
+    protected void load()
+    {
+        if (!loaded && isEnabled())
+        {
+            readFile();
+        }
+    }
+
+    private synchronized void readFile()
+    {
+        if (loaded)
+        {
+            return;
+        }
+        // set last, so other threads only skip reading once all entries are there
+        try
+        {
+            if (Files.isRegularFile(cacheFile))
+            {
+                readEntries();
+            }
+        }
+        finally
+        {
+            loaded = true;
+        }
+    }
+
+    private void readEntries()
+    {
+        try (InputStream in = Files.newInputStream(cacheFile);
+            JsonReader jsonReader = Json.createReader(in))
+        {
+            JsonObject json = jsonReader.readObject();
+            if (json.getInt("version", 0) != FORMAT_VERSION)
+            {
+                LOGGER.info("Ignoring {} {} with unknown format", name, cacheFile);
+                return;
+            }
+            for (JsonObject entryJson : json.getJsonArray("entries").getValuesAs(JsonObject.class))
+            {
+                entries.put(entryJson.getString(keyName), readEntry(entryJson));
+            }
+            LOGGER.debug("Loaded {} entries from {} {}", entries.size(), name, cacheFile);
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Could not read {} {}: {}", name, cacheFile, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes the cache file (if anything changed). When the cache grows too big, only the entries used in this
+     * analysis are kept.
+     */
+    public synchronized void save()
+    {
+        if (!isEnabled() || !modified.get())
+        {
+            return;
+        }
+
+        if (entries.size() > maxEntries)
+        {
+            entries.keySet().retainAll(usedKeys);
+        }
+
+        Path tempFile = null;
+        try
+        {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            tempFile = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile);
+                JsonGenerator generator = Json.createGenerator(out))
+            {
+                generator.writeStartObject();
+                generator.write("version", FORMAT_VERSION);
+                generator.writeStartArray("entries");
+                for (Map.Entry<String, E> entry : entries.entrySet())
+                {
+                    generator.writeStartObject();
+                    generator.write(keyName, entry.getKey());
+                    writeEntry(generator, entry.getValue());
+                    generator.writeEnd();
+                }
+                generator.writeEnd();
+                generator.writeEnd();
+            }
+            // replace in one step, so concurrent analyses never see a half written file
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified.set(false);
+            LOGGER.debug("Saved {} entries to {} {}", entries.size(), name, cacheFile);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Could not write {} {}: {}", name, cacheFile, e.getMessage());
+            deleteQuietly(tempFile);
+        }
+    }
+
+    protected static void writeIfNotNull(JsonGenerator generator, String name, String value)
+    {
+        if (value != null)
+        {
+            generator.write(name, value);
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        if (file == null)
+        {
+            return;
+        }
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Could not delete {}", file);
+        }
+    }
+}
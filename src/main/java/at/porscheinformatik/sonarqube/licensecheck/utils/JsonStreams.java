@@ -0,0 +1,78 @@
+package at.porscheinformatik.sonarqube.licensecheck.utils;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+public final class JsonStreams
+{
+    private JsonStreams()
+    {
+    }
+
+    /**
+     * Reads a JSON object and passes every object inside the arrays with the given keys to the matching handler. Only
+     * one array element is held in memory at a time, everything else is skipped while parsing.
+     *
+     * @param input the JSON document (an object)
+     * @param handlers the handler per key of the top-level arrays
+     * @throws javax.json.JsonException if the JSON cannot be read
+     */
+    public static void forEachArrayObject(InputStream input, Map<String, Consumer<JsonObject>> handlers)
+    {
+        try (JsonParser parser = Json.createParser(input))
+        {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT)
+            {
+                return;
+            }
+
+            while (parser.next() == Event.KEY_NAME)
+            {
+                Consumer<JsonObject> handler = handlers.get(parser.getString());
+                Event event = parser.next();
+                if (handler != null && event == Event.START_ARRAY)
+                {
+                    readArray(parser, handler);
+                }
+                else
+                {
+                    skip(parser, event);
+                }
+            }
+        }
+    }
+
+    private static void readArray(JsonParser parser, Consumer<JsonObject> handler)
+    {
+        Event event;
+        while ((event = parser.next()) != Event.END_ARRAY)
+        {
+            if (event == Event.START_OBJECT)
+            {
+                handler.accept(parser.getObject());
+            }
+            else
+            {
+                skip(parser, event);
+            }
+        }
+    }
+
+    private static void skip(JsonParser parser, Event event)
+    {
+        if (event == Event.START_OBJECT)
+        {
+            parser.skipObject();
+        }
+        else if (event == Event.START_ARRAY)
+        {
+            parser.skipArray();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package at.porscheinformatik.sonarqube.licensecheck.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import org.sonar.api.server.ws.LocalConnector;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyMeasure;
+import at.porscheinformatik.sonarqube.licensecheck.LicenseCheckMetrics;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+/**
+ * <code>api/licensecheck/dependencies</code> - one page of the dependencies of a project, optionally filtered and
+ * sorted. The measures are read with <code>api/measures/search</code> (so the permissions of the user apply) and the
+ * decoded dependencies are kept for the last few projects until the next analysis changes the measures.
+ */
+public class DependenciesAction implements RequestHandler
+{
+    static final String ACTION = "dependencies";
+    static final String PARAM_PROJECT = "project";
+    static final String PARAM_STATUS = "status";
+    static final String PARAM_LICENSE = "license";
+    static final String PARAM_LANG = "lang";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_CACHED_PROJECTS = 20;
+
+    private final Map<String, CachedIndex> cache = new LinkedHashMap<String, CachedIndex>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedIndex> eldest)
+        {
+            return size() > MAX_CACHED_PROJECTS;
+        }
+    };
+
+    void define(WebService.NewController controller)
+    {
+        WebService.NewAction action = controller.createAction(ACTION)
+            .setDescription("Get the dependencies of a project with their license status")
+            .setSince("5.1")
+            .setHandler(this)
+            .addPagingParams(DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        action.createParam(PARAM_PROJECT)
+            .setDescription("Project key")
+            .setRequired(true);
+        action.createParam(PARAM_STATUS)
+            .setDescription("Only dependencies with this license status")
+            .setPossibleValues(Arrays.asList(Dependency.Status.values()));
+        action.createParam(PARAM_LICENSE)
+            .setDescription("Only dependencies with this license")
+            .setExampleValue("Apache-2.0");
+        action.createParam(PARAM_LANG)
+            .setDescription("Only dependencies of this language")
+            .setExampleValue("java");
+        action.createParam(WebService.Param.SORT)
+            .setDescription("Sort field")
+            .setPossibleValues(DependencyIndex.SORT_FIELDS)
+            .setDefaultValue(DependencyIndex.SORT_NAME);
+        action.createParam(WebService.Param.ASCENDING)
+            .setDescription("Ascending sort")
+            .setPossibleValues("true", "false")
+            .setDefaultValue("true");
+    }
+
+    @Override
+    public void handle(Request request, Response response)
+    {
+        String projectKey = request.mandatoryParam(PARAM_PROJECT);
+        LocalConnector.LocalResponse measuresResponse =
+            request.localConnector().call(new MeasuresSearchRequest(projectKey));
+        if (measuresResponse.getStatus() != 200)
+        {
+            // e.g. unknown project or missing permission
+            forward(measuresResponse, response);
+            return;
+        }
+
+        Map<String, String> measures = readMeasures(measuresResponse.getBytes());
+        DependencyIndex index = getIndex(projectKey,
+            measures.get(LicenseCheckMetrics.LICENSE_CHECK_DEPENDENCY_KEY),
+            measures.get(LicenseCheckMetrics.LICENSE_CHECK_LICENSE_KEY));
+
+        String status = request.param(PARAM_STATUS);
+        List<Dependency> found = index.find(status != null ? Dependency.Status.valueOf(status) : null,
+            request.param(PARAM_LICENSE), request.param(PARAM_LANG), request.mandatoryParam(WebService.Param.SORT),
+            request.mandatoryParamAsBoolean(WebService.Param.ASCENDING));
+
+        int page = request.mandatoryParamAsInt(WebService.Param.PAGE);
+        int pageSize = request.mandatoryParamAsInt(WebService.Param.PAGE_SIZE);
+        int from = (int) Math.min((long) (page - 1) * pageSize, found.size());
+        int to = Math.min(from + pageSize, found.size());
+
+        try (JsonWriter json = response.newJsonWriter())
+        {
+            json.beginObject();
+            json.name("paging").beginObject()
+                .prop("pageIndex", page)
+                .prop("pageSize", pageSize)
+                .prop("total", found.size())
+                .endObject();
+            json.name("dependencies").beginArray();
+            for (Dependency dependency : found.subList(from, to))
+            {
+                json.beginObject()
+                    .prop("name", dependency.getName())
+                    .prop("version", dependency.getVersion())
+                    .prop("license", dependency.getLicense())
+                    .prop("lang", dependency.getLang())
+                    .prop("status", dependency.getStatus().name())
+                    .endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private DependencyIndex getIndex(String projectKey, String dependencyMeasure, String licenseMeasure)
+    {
+        synchronized (cache)
+        {
+            CachedIndex cached = cache.get(projectKey);
+            if (cached != null && cached.isFor(dependencyMeasure, licenseMeasure))
+            {
+                return cached.index;
+            }
+        }
+
+        List<Dependency> dependencies = dependencyMeasure != null
+            ? DependencyMeasure.decode(dependencyMeasure)
+            : Collections.emptyList();
+        DependencyIndex index = DependencyIndex.of(dependencies, License.fromString(licenseMeasure));
+        synchronized (cache)
+        {
+            cache.put(projectKey, new CachedIndex(dependencyMeasure, licenseMeasure, index));
+        }
+        return index;
+    }
+
+    private static Map<String, String> readMeasures(byte[] measuresResponse)
+    {
+        Map<String, String> measures = new HashMap<>();
+        try (JsonReader jsonReader = Json.createReader(new ByteArrayInputStream(measuresResponse)))
+        {
+            for (JsonValue value : jsonReader.readObject().getJsonArray("measures"))
+            {
+                JsonObject measure = value.asJsonObject();
+                measures.put(measure.getString("metric"), measure.getString("value", null));
+            }
+        }
+        return measures;
+    }
+
+    private static void forward(LocalConnector.LocalResponse localResponse, Response response)
+    {
+        Response.Stream stream = response.stream()
+            .setStatus(localResponse.getStatus())
+            .setMediaType(localResponse.getMediaType());
+        try (OutputStream output = stream.output())
+        {
+            output.write(localResponse.getBytes());
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Could not write response", e);
+        }
+    }
+
+    private static final class CachedIndex
+    {
+        private final String dependencyMeasure;
+        private final String licenseMeasure;
+        private final DependencyIndex index;
+
+        private CachedIndex(String dependencyMeasure, String licenseMeasure, DependencyIndex index)
+        {
+            this.dependencyMeasure = dependencyMeasure;
+            this.licenseMeasure = licenseMeasure;
+            this.index = index;
+        }
+
+        /**
+         * A new analysis changes the measures - strings of different length are rejected without comparing them.
+         */
+        private boolean isFor(String dependencyMeasure, String licenseMeasure)
+        {
+            return Objects.equals(this.dependencyMeasure, dependencyMeasure)
+                && Objects.equals(this.licenseMeasure, licenseMeasure);
+        }
+    }
+
+    private static final class MeasuresSearchRequest implements LocalConnector.LocalRequest
+    {
+        private final Map<String, String> params = new HashMap<>();
+
+        private MeasuresSearchRequest(String projectKey)
+        {
+            params.put("projectKeys", projectKey);
+            params.put("metricKeys", LicenseCheckMetrics.LICENSE_CHECK_DEPENDENCY_KEY + ","
+                + LicenseCheckMetrics.LICENSE_CHECK_LICENSE_KEY);
+        }
+
+        @Override
+        public String getPath()
+        {
+            return "api/measures/search";
+        }
+
+        @Override
+        public String getMethod()
+        {
+            return "GET";
+        }
+
+        @Override
+        public String getMediaType()
+        {
+            return "application/json";
+        }
+
+        @Override
+        public boolean hasParam(String key)
+        {
+            return params.containsKey(key);
+        }
+
+        @Override
+        public String getParam(String key)
+        {
+            return params.get(key);
+        }
+
+        @Override
+        public List<String> getMultiParam(String key)
+        {
+            return params.containsKey(key) ? Collections.singletonList(params.get(key)) : Collections.emptyList();
+        }
+
+        @Override
+        public Optional<String> getHeader(String name)
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap()
+        {
+            Map<String, String[]> parameterMap = new HashMap<>();
+            params.forEach((key, value) -> parameterMap.put(key, new String[]{value}));
+            return parameterMap;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package at.porscheinformatik.sonarqube.licensecheck.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+/**
+ * The dependencies of one analysis with their status (computed from the used licenses), sorted by each field on
+ * demand. Immutable, so it can be shared by concurrent requests.
+ */
+final class DependencyIndex
+{
+    static final String SORT_NAME = "name";
+    static final String SORT_VERSION = "version";
+    static final String SORT_LICENSE = "license";
+    static final String SORT_LANG = "lang";
+    static final String SORT_STATUS = "status";
+    static final List<String> SORT_FIELDS =
+        Collections.unmodifiableList(Arrays.asList(SORT_NAME, SORT_VERSION, SORT_LICENSE, SORT_LANG, SORT_STATUS));
+
+    private static final Comparator<Dependency> BY_NAME_AND_VERSION =
+        Comparator.comparing(Dependency::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Dependency::getVersion, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final List<Dependency> dependencies;
+    private final Map<String, List<Dependency>> sorted = new ConcurrentHashMap<>();
+
+    private DependencyIndex(List<Dependency> dependencies)
+    {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * @param dependencies the dependencies of the dependency measure
+     * @param licenses the licenses of the license measure
+     * @return the index - the status of a dependency is {@link Dependency.Status#Unknown} if its license is not in
+     *     the list of licenses
+     */
+    static DependencyIndex of(List<Dependency> dependencies, List<License> licenses)
+    {
+        Map<String, Boolean> allowedByIdentifier = new HashMap<>();
+        licenses.forEach(license -> allowedByIdentifier.put(license.getIdentifier(), license.getAllowed()));
+
+        List<Dependency> indexed = new ArrayList<>(dependencies.size());
+        for (Dependency dependency : dependencies)
+        {
+            Boolean allowed = allowedByIdentifier.get(dependency.getLicense());
+            if (allowed == null)
+            {
+                dependency.setStatus(Dependency.Status.Unknown);
+            }
+            else
+            {
+                dependency.setStatus(allowed ? Dependency.Status.Allowed : Dependency.Status.Forbidden);
+            }
+            indexed.add(dependency);
+        }
+        return new DependencyIndex(Collections.unmodifiableList(indexed));
+    }
+
+    int size()
+    {
+        return dependencies.size();
+    }
+
+    /**
+     * @param status the status or <code>null</code> for all
+     * @param license the license or <code>null</code> for all
+     * @param lang the language or <code>null</code> for all
+     * @param sort one of {@link #SORT_FIELDS} - ties are sorted by name and version
+     * @param ascending sort direction
+     * @return the matching dependencies
+     */
+    List<Dependency> find(Dependency.Status status, String license, String lang, String sort, boolean ascending)
+    {
+        List<Dependency> sortedDependencies = sorted.computeIfAbsent(sort, this::sort);
+        List<Dependency> found = new ArrayList<>();
+        for (Dependency dependency : sortedDependencies)
+        {
+            if ((status == null || status == dependency.getStatus())
+                && (license == null || license.equals(dependency.getLicense()))
+                && (lang == null || lang.equals(dependency.getLang())))
+            {
+                found.add(dependency);
+            }
+        }
+        if (!ascending)
+        {
+            Collections.reverse(found);
+        }
+        return found;
+    }
+
+    private List<Dependency> sort(String field)
+    {
+        List<Dependency> sortedDependencies = new ArrayList<>(dependencies);
+        sortedDependencies.sort(comparator(field));
+        return Collections.unmodifiableList(sortedDependencies);
+    }
+
+    private static Comparator<Dependency> comparator(String field)
+    {
+        switch (field)
+        {
+            case SORT_NAME:
+                return BY_NAME_AND_VERSION;
+            case SORT_VERSION:
+                return by(Dependency::getVersion);
+            case SORT_LICENSE:
+                return by(Dependency::getLicense);
+            case SORT_LANG:
+                return by(Dependency::getLang);
+            case SORT_STATUS:
+                return by(d -> d.getStatus().name());
+            default:
+                throw new IllegalArgumentException("Unknown sort field " + field);
+        }
+    }
+
+    private static Comparator<Dependency> by(Function<Dependency, String> field)
+    {
+        return Comparator.comparing(field, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(BY_NAME_AND_VERSION);
+    }
+}
@@ -12,10 +12,13 @@ import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicense
  */
 public class LicenseCheckWebService implements WebService
 {
+    static final String CONTROLLER = "api/licensecheck";
+
     private final LicenseSettingsService licenseSettingsService;
     private final ProjectLicenseSettingsService projectLicenseSettingsService;
     private final LicenseMappingSettingsService licenseMappingSettingsService;
     private final DependencyMappingSettingsService dependencyMappingSettingsService;
+    private final DependenciesAction dependenciesAction = new DependenciesAction();
 
     public LicenseCheckWebService(LicenseSettingsService licenseSettingsService,
         ProjectLicenseSettingsService projectLicenseSettingsService,
@@ -37,5 +40,11 @@ public class LicenseCheckWebService implements WebService
         projectLicenseSettingsService.init();
         licenseMappingSettingsService.init();
         dependencyMappingSettingsService.init();
+
+        NewController controller = context.createController(CONTROLLER)
+            .setDescription("License Check")
+            .setSince("5.1");
+        dependenciesAction.define(controller);
+        controller.done();
     }
 }
@@ -0,0 +1,45 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One Maven process resolving the dependency list of a POM (or of a whole reactor). Replaces the no-op event of
+ * <code>src/main/java</code> on Java 11+ - keep the public methods of both in sync.
+ */
+@Name("licensecheck.MavenInvocation")
+@Label("License Check Maven Invocation")
+@Category({"SonarQube", "License Check"})
+@Description("One Maven process resolving the dependency list")
+@StackTrace(false)
+public class MavenInvocationEvent extends Event
+{
+    @Label("POM")
+    private String pom;
+
+    @Label("Reactor")
+    @Description("All modules of the reactor resolved at once")
+    private boolean reactor;
+
+    @Label("Exit Code")
+    private int exitCode;
+
+    public void setPom(String pom)
+    {
+        this.pom = pom;
+    }
+
+    public void setReactor(boolean reactor)
+    {
+        this.reactor = reactor;
+    }
+
+    public void setExitCode(int exitCode)
+    {
+        this.exitCode = exitCode;
+    }
+}
@@ -0,0 +1,54 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Looking up the licenses of one POM, including its parents (which are nested events). Replaces the no-op event of
+ * <code>src/main/java</code> on Java 11+ - keep the public methods of both in sync.
+ */
+@Name("licensecheck.PomLicenses")
+@Label("License Check POM Licenses")
+@Category({"SonarQube", "License Check"})
+@Description("Licenses of one POM read from the cache or parsed from the POM and its parents")
+@StackTrace(false)
+public class PomLicensesEvent extends Event
+{
+    @Label("POM")
+    private String pom;
+
+    @Label("Dependency")
+    @Description("groupId:artifactId:version")
+    private String dependency;
+
+    @Label("Cache Hit")
+    @Description("Found in the in-memory or the persistent cache")
+    private boolean cacheHit;
+
+    @Label("License Count")
+    private int licenseCount;
+
+    public void setPom(String pom)
+    {
+        this.pom = pom;
+    }
+
+    public void setDependency(String dependency)
+    {
+        this.dependency = dependency;
+    }
+
+    public void setCacheHit(boolean cacheHit)
+    {
+        this.cacheHit = cacheHit;
+    }
+
+    public void setLicenseCount(int licenseCount)
+    {
+        this.licenseCount = licenseCount;
+    }
+}
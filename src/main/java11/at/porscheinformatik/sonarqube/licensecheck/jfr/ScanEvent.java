@@ -0,0 +1,44 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@link at.porscheinformatik.sonarqube.licensecheck.Scanner} scanning one module. Replaces the no-op event of
+ * <code>src/main/java</code> on Java 11+ - keep the public methods of both in sync.
+ */
+@Name("licensecheck.Scan")
+@Label("License Check Scan")
+@Category({"SonarQube", "License Check"})
+@Description("One dependency scanner scanning one module")
+@StackTrace(false)
+public class ScanEvent extends Event
+{
+    @Label("Scanner")
+    private String scanner;
+
+    @Label("Module")
+    private String module;
+
+    @Label("Dependency Count")
+    private int dependencyCount;
+
+    public void setScanner(String scanner)
+    {
+        this.scanner = scanner;
+    }
+
+    public void setModule(String module)
+    {
+        this.module = module;
+    }
+
+    public void setDependencyCount(int dependencyCount)
+    {
+        this.dependencyCount = dependencyCount;
+    }
+}
@@ -0,0 +1,45 @@
+package at.porscheinformatik.sonarqube.licensecheck.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Validating the licenses of the dependencies of one module. Replaces the no-op event of <code>src/main/java</code>
+ * on Java 11+ - keep the public methods of both in sync.
+ */
+@Name("licensecheck.Validation")
+@Label("License Check Validation")
+@Category({"SonarQube", "License Check"})
+@Description("Validating the licenses of the dependencies of one module")
+@StackTrace(false)
+public class ValidationEvent extends Event
+{
+    @Label("Project")
+    private String project;
+
+    @Label("Dependency Count")
+    private int dependencyCount;
+
+    @Label("Unknown Count")
+    @Description("Dependencies with an unknown or not allowed license")
+    private int unknownCount;
+
+    public void setProject(String project)
+    {
+        this.project = project;
+    }
+
+    public void setDependencyCount(int dependencyCount)
+    {
+        this.dependencyCount = dependencyCount;
+    }
+
+    public void setUnknownCount(int unknownCount)
+    {
+        this.unknownCount = unknownCount;
+    }
+}
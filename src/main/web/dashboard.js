@@ -11,35 +11,26 @@ window.registerExtension('licensecheck/dashboard', function (options) {
     data: () => {
       return {
         licenses: [],
-        dependencies: [],
         component: options.component
       }
     },
     created() {
       window.SonarRequest
-        .getJSON(`/api/measures/search?projectKeys=${this.component.key}&metricKeys=licensecheck.license,licensecheck.dependency`)
+        .getJSON(`/api/measures/search?projectKeys=${this.component.key}&metricKeys=licensecheck.license`)
         .then(response => {
           response.measures.forEach(measure => {
             if (measure.metric === 'licensecheck.license') {
               this.licenses = JSON.parse(measure.value);
-            } else if (measure.metric === 'licensecheck.dependency') {
-              this.dependencies = JSON.parse(measure.value);
             }
           });
-          this.dependencies.forEach(dependency => {
-            dependency.status = 'Unknown';
-            this.licenses.forEach(license => {
-              if (dependency.license === license.identifier) {
-                dependency.status = license.status === 'true' ? 'Allowed' : 'Forbidden';
-              }
-            });
-          });
         });
     },
     methods: {
       exportExcel() {
-        const blob = new Blob([buildExcel(this.dependencies, this.licenses)], {type: "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"});
-        saveAs(blob, `license-check-${this.component.key}.xls`);
+        fetchAllDependencies(this.component.key, 1, []).then(dependencies => {
+          const blob = new Blob([buildExcel(dependencies, this.licenses)], {type: "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"});
+          saveAs(blob, `license-check-${this.component.key}.xls`);
+        });
       }
     },
     template: `<div class="page page-limited">
@@ -48,7 +39,7 @@ window.registerExtension('licensecheck/dashboard', function (options) {
   <p>&nbsp;</p>
   <licenses :licenses="licenses"></licenses>
   <p>&nbsp;</p>
-  <dependencies :dependencies="dependencies"></dependencies>
+  <dependencies :project-key="component.key"></dependencies>
 </div>`,
     components: { Licenses, Dependencies },
   });
@@ -57,4 +48,15 @@ window.registerExtension('licensecheck/dashboard', function (options) {
     app.$destroy();
   };
 
-});
\ No newline at end of file
+});
+
+function fetchAllDependencies(projectKey, page, dependencies) {
+  return window.SonarRequest
+    .getJSON('/api/licensecheck/dependencies', {project: projectKey, p: page, ps: 500})
+    .then(response => {
+      const all = dependencies.concat(response.dependencies);
+      return all.length < response.paging.total && response.dependencies.length > 0
+        ? fetchAllDependencies(projectKey, page + 1, all)
+        : all;
+    });
+}
@@ -0,0 +1,57 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.junit.Test;
+
+public class AnalysisStatisticsTest
+{
+    @Test
+    public void toJson()
+    {
+        AnalysisStatistics statistics = new AnalysisStatistics();
+        statistics.addTime(AnalysisStatistics.Phase.MAVEN_INVOCATION, TimeUnit.MILLISECONDS.toNanos(1500));
+        statistics.addTime(AnalysisStatistics.Phase.MAVEN_INVOCATION, TimeUnit.MILLISECONDS.toNanos(500));
+        statistics.addScannerTime("MavenDependencyScanner", TimeUnit.MILLISECONDS.toNanos(2100));
+        statistics.increment(AnalysisStatistics.Counter.PROCESSES_FORKED);
+        statistics.increment(AnalysisStatistics.Counter.PROCESSES_FORKED);
+
+        JsonObject report;
+        try (JsonReader jsonReader = Json.createReader(new StringReader(statistics.toJson("my-project", 42))))
+        {
+            report = jsonReader.readObject();
+        }
+
+        assertThat(report.getInt("version"), is(AnalysisStatistics.REPORT_VERSION));
+        assertThat(report.getString("project"), is("my-project"));
+        assertThat(report.getInt("dependencies"), is(42));
+        assertThat(report.getJsonObject("phases").getInt("mavenInvocation"), is(2000));
+        assertThat(report.getJsonObject("phases").getInt("pomParsing"), is(0));
+        assertThat(report.getJsonObject("scanners").getInt("MavenDependencyScanner"), is(2100));
+        assertThat(report.getJsonObject("counters").getInt("processesForked"), is(2));
+        assertThat(report.getJsonObject("counters").getInt("filesRead"), is(0));
+    }
+
+    @Test
+    public void clear()
+    {
+        AnalysisStatistics statistics = new AnalysisStatistics();
+        statistics.addTime(AnalysisStatistics.Phase.TOTAL, TimeUnit.SECONDS.toNanos(1));
+        statistics.addScannerTime("GradleDependencyScanner", TimeUnit.SECONDS.toNanos(1));
+        statistics.increment(AnalysisStatistics.Counter.FILES_READ);
+
+        statistics.clear();
+
+        assertThat(statistics.getMillis(AnalysisStatistics.Phase.TOTAL), is(0L));
+        assertThat(statistics.get(AnalysisStatistics.Counter.FILES_READ), is(0L));
+        assertThat(statistics.getScannerMillis().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,57 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+public class DependencyAggregatorTest
+{
+    @Test
+    public void mergesModules()
+    {
+        DependencyAggregator aggregator = new DependencyAggregator();
+        License mit = new License("MIT", "MIT", true);
+        License apache = new License("Apache 2.0", "Apache-2.0", true);
+
+        aggregator.add(Arrays.asList(new Dependency("a", "1.0", "MIT"), new Dependency("b", "1.0", "Apache-2.0")),
+            Arrays.asList(mit, apache));
+        aggregator.add(Arrays.asList(new Dependency("a", "1.0", "MIT"), new Dependency("c", "2.0", "MIT")),
+            Collections.singletonList(mit));
+
+        assertThat(aggregator.getDependencies(), containsInAnyOrder(
+            new Dependency("a", "1.0", "MIT"),
+            new Dependency("b", "1.0", "Apache-2.0"),
+            new Dependency("c", "2.0", "MIT")));
+        assertThat(aggregator.getLicenses(), containsInAnyOrder(mit, apache));
+
+        aggregator.clear();
+
+        assertThat(aggregator.getDependencies().isEmpty(), is(true));
+        assertThat(aggregator.getLicenses().isEmpty(), is(true));
+    }
+
+    @Test
+    public void keepsNoInputFiles()
+    {
+        DependencyAggregator aggregator = new DependencyAggregator();
+        Dependency dependency = new Dependency("a", "1.0", "MIT");
+        dependency.setStatus(Dependency.Status.Allowed);
+        dependency.setInputComponent(mock(InputFile.class));
+
+        aggregator.add(Collections.singletonList(dependency), Collections.emptyList());
+
+        Dependency aggregated = aggregator.getDependencies().iterator().next();
+        assertThat(aggregated.getStatus(), is(Dependency.Status.Allowed));
+        assertThat(aggregated.getInputComponent(), nullValue());
+    }
+}
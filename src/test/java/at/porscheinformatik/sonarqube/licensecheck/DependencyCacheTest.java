@@ -0,0 +1,101 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DependencyCacheTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path cacheFile;
+
+    @Before
+    public void setup()
+    {
+        cacheFile = temporaryFolder.getRoot().toPath().resolve("cache/dependencies.json");
+    }
+
+    @Test
+    public void entriesSurviveSaveAndLoad()
+    {
+        DependencyCache cache = new DependencyCache(cacheFile);
+        cache.put("maven:pom.xml", "hash1", Arrays.asList(
+            new Dependency("org.example:lib", "1.0", "MIT", LicenseCheckRulesDefinition.LANG_JAVA),
+            new Dependency("org.example:other", "2.0", null, LicenseCheckRulesDefinition.LANG_JAVA)));
+        cache.save();
+
+        List<Dependency> dependencies = new DependencyCache(cacheFile).get("maven:pom.xml", "hash1");
+
+        assertThat(dependencies, contains(
+            new Dependency("org.example:lib", "1.0", "MIT", LicenseCheckRulesDefinition.LANG_JAVA),
+            new Dependency("org.example:other", "2.0", null, LicenseCheckRulesDefinition.LANG_JAVA)));
+        assertThat(dependencies.get(0).getLang(), is(LicenseCheckRulesDefinition.LANG_JAVA));
+        assertThat(dependencies.get(1).getLicense(), nullValue());
+    }
+
+    @Test
+    public void newHashReplacesEntry()
+    {
+        DependencyCache cache = new DependencyCache(cacheFile);
+        cache.put("npm:package-lock.json", "hash1",
+            Collections.singletonList(new Dependency("angular", "1.5.0", "MIT")));
+        cache.put("npm:package-lock.json", "hash2",
+            Collections.singletonList(new Dependency("angular", "1.6.0", "MIT")));
+
+        assertThat(cache.get("npm:package-lock.json", "hash1"), nullValue());
+        assertThat(cache.get("npm:package-lock.json", "hash2"), contains(new Dependency("angular", "1.6.0", "MIT")));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void disabledCacheIsEmpty()
+    {
+        DependencyCache cache = DependencyCache.disabled();
+        cache.put("npm:package-lock.json", "hash1",
+            Collections.singletonList(new Dependency("angular", "1.5.0", "MIT")));
+        cache.save();
+
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(cache.get("npm:package-lock.json", "hash1"), nullValue());
+    }
+
+    @Test
+    public void corruptCacheFileIsIgnored() throws IOException
+    {
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, "{\"version\":1,\"entries\":[".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new DependencyCache(cacheFile).get("maven:pom.xml", "hash1"), nullValue());
+    }
+
+    @Test
+    public void keyDependsOnFileContent() throws IOException
+    {
+        Path manifest = temporaryFolder.newFile("package-lock.json").toPath();
+        Files.write(manifest, "{}".getBytes(StandardCharsets.UTF_8));
+        String hash = DependencyCache.newKey().add(true).addFile(manifest).build();
+
+        assertThat(DependencyCache.newKey().add(true).addFile(manifest).build(), is(hash));
+        assertThat(DependencyCache.newKey().add(false).addFile(manifest).build(), not(hash));
+
+        Files.write(manifest, "{ }".getBytes(StandardCharsets.UTF_8));
+        assertThat(DependencyCache.newKey().add(true).addFile(manifest).build(), not(hash));
+    }
+}
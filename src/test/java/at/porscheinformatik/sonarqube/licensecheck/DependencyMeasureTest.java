@@ -0,0 +1,56 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class DependencyMeasureTest
+{
+    private static final String DEPENDENCIES_V2 = "{\"v\":2,\"licenses\":[\"MIT\",\"Apache-2.0\",\" \"],"
+        + "\"langs\":[\"java\",\"js\"],\"name\":[\"another\",\"library\",\"npm-thing\"],"
+        + "\"version\":[\"2.1.0\",\"1.0.0\",\"unkwown-version\"],\"license\":[0,1,2],\"lang\":[0,0,1]}";
+    private static final Dependency DEP1 = new Dependency("another", "2.1.0", "MIT");
+    private static final Dependency DEP2 = new Dependency("library", "1.0.0", "Apache-2.0");
+    private static final Dependency DEP3 = new Dependency("npm-thing", null, null, "js");
+
+    @Test
+    public void encode()
+    {
+        assertThat(DependencyMeasure.encode(asList(DEP3, DEP2, DEP1), false), equalTo(DEPENDENCIES_V2));
+    }
+
+    @Test
+    public void decodeAllVersions()
+    {
+        String version1 = Dependency.createString(asList(DEP1, DEP2, DEP3));
+        String compressed = DependencyMeasure.encode(asList(DEP1, DEP2, DEP3), true);
+        assertThat(compressed, startsWith("{\"v\":2,\"deflate\":\""));
+
+        for (String value : asList(version1, DEPENDENCIES_V2, compressed))
+        {
+            List<Dependency> dependencies = DependencyMeasure.decode(value);
+
+            assertThat(dependencies, equalTo(asList(DEP1, DEP2,
+                new Dependency("npm-thing", "unkwown-version", " ", "js"))));
+            assertThat(dependencies.get(2).getLang(), is("js"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeUnknownVersion()
+    {
+        DependencyMeasure.decode("{\"v\":3}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeInvalid()
+    {
+        DependencyMeasure.decode("{\"v\":2,\"deflate\":\"bm90IGRlZmxhdGVk\"}");
+    }
+}
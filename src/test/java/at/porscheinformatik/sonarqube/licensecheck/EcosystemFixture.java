@@ -0,0 +1,533 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.DEPENDENCY_MAPPING;
+import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_MAPPING;
+import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_SET;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.stream.JsonGenerator;
+
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMapping;
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+import at.porscheinformatik.sonarqube.licensecheck.license.LicenseService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMapping;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicenseService;
+import at.porscheinformatik.sonarqube.licensecheck.utils.IOUtils;
+
+/**
+ * Generates a project with dependencies of all supported ecosystems on disk - a local Maven repository with
+ * parent-chained POMs, a <code>node_modules</code> tree and the Gradle, Swift and Pub license reports. The same
+ * counts always generate the same files.
+ * <p>
+ * Maven itself is replaced by a shell script in a generated Maven home (see {@link #getSystemProperties()}) which
+ * writes the prepared <code>dependency:list</code> output, so no network and no real Maven is needed. The licenses
+ * are still read from the POMs of the generated repository.
+ */
+public final class EcosystemFixture
+{
+    /**
+     * License names as found in POMs, <code>package.json</code> files and license reports - most of them are mapped
+     * by the default license mapping, some are SPDX identifiers or expressions, one is not known at all.
+     */
+    private static final String[] LICENSE_NAMES = {
+        "The Apache Software License, Version 2.0",
+        "MIT License",
+        "MIT",
+        "Apache-2.0",
+        "BSD-3-Clause",
+        "Eclipse Public License - v 1.0",
+        "(MIT OR Apache-2.0)",
+        "ISC",
+        "GNU Lesser General Public License",
+        "CDDL + GPLv2 with classpath exception",
+        "GPL-3.0",
+        "Fixture Proprietary License"
+    };
+    /**
+     * All licenses are imported as not allowed - allow the usual permissive ones.
+     */
+    private static final List<String> ALLOWED_LICENSES =
+        Arrays.asList("Apache-2.0", "MIT", "BSD-3-Clause", "ISC", "EPL-1.0");
+    private static final int MAVEN_GROUPS = 20;
+    private static final int NPM_DIRECT_DEPENDENCIES = 20;
+    private static final int NPM_CHILDREN = 3;
+
+    private final Path projectDir;
+    private final Path mavenRepository;
+    private final Path mavenHome;
+    private int mavenDependencies;
+    private int parentDepth = 3;
+    private int npmPackages;
+    private int gradleDependencies;
+    private int swiftDependencies;
+    private int pubDependencies;
+
+    /**
+     * @param root empty directory for the fixture
+     */
+    public EcosystemFixture(Path root)
+    {
+        this.projectDir = root.resolve("project");
+        this.mavenRepository = root.resolve("repository");
+        this.mavenHome = root.resolve("maven");
+    }
+
+    /**
+     * @param dependencies number of Maven dependencies
+     * @param parentDepth number of parent POMs above each dependency POM - the licenses are mostly declared by the
+     *     topmost one
+     * @return this
+     */
+    public EcosystemFixture maven(int dependencies, int parentDepth)
+    {
+        this.mavenDependencies = dependencies;
+        this.parentDepth = parentDepth;
+        return this;
+    }
+
+    /**
+     * @param packages number of NPM packages (direct and transitive), some installed in nested
+     *     <code>node_modules</code> directories
+     * @return this
+     */
+    public EcosystemFixture npm(int packages)
+    {
+        this.npmPackages = packages;
+        return this;
+    }
+
+    public EcosystemFixture gradle(int dependencies)
+    {
+        this.gradleDependencies = dependencies;
+        return this;
+    }
+
+    public EcosystemFixture swift(int dependencies)
+    {
+        this.swiftDependencies = dependencies;
+        return this;
+    }
+
+    public EcosystemFixture pub(int dependencies)
+    {
+        this.pubDependencies = dependencies;
+        return this;
+    }
+
+    /**
+     * @param dependencies number of dependencies of each ecosystem
+     * @param parentDepth number of parent POMs above each Maven dependency POM
+     * @return this
+     */
+    public EcosystemFixture all(int dependencies, int parentDepth)
+    {
+        return maven(dependencies, parentDepth)
+            .npm(dependencies)
+            .gradle(dependencies)
+            .swift(dependencies)
+            .pub(dependencies);
+    }
+
+    public Path getProjectDir()
+    {
+        return projectDir;
+    }
+
+    /**
+     * @return number of distinct dependencies the sensor has to find
+     */
+    public int getDependencyCount()
+    {
+        return mavenDependencies + npmPackages + gradleDependencies + swiftDependencies + pubDependencies;
+    }
+
+    /**
+     * @return the system properties the Maven scanner needs to use the generated Maven home and repository
+     */
+    public Map<String, String> getSystemProperties()
+    {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("maven.home", mavenHome.toAbsolutePath().toString());
+        properties.put("maven.repo.local", mavenRepository.toAbsolutePath().toString());
+        return properties;
+    }
+
+    public EcosystemFixture generate() throws IOException
+    {
+        Files.createDirectories(projectDir);
+        if (mavenDependencies > 0)
+        {
+            generateMaven();
+        }
+        if (npmPackages > 0)
+        {
+            generateNpm();
+        }
+        if (gradleDependencies > 0)
+        {
+            generateGradle();
+        }
+        if (swiftDependencies > 0)
+        {
+            write(projectDir.resolve("build/reports/license_finder/swift-license-details.json"),
+                licenseFinderReport("fixture-pod-", swiftDependencies));
+        }
+        if (pubDependencies > 0)
+        {
+            write(projectDir.resolve("build/reports/license_finder/flutter-license-details.json"),
+                licenseFinderReport("fixture_package_", pubDependencies));
+        }
+        return this;
+    }
+
+    /**
+     * @return a sensor context for the generated project with its <code>pom.xml</code> and
+     *     <code>package.json</code> and the settings of {@link #createSettings()}
+     */
+    public SensorContextTester createContext() throws IOException
+    {
+        SensorContextTester context = SensorContextTester.create(projectDir);
+        context.setSettings(createSettings());
+        for (String fileName : new String[]{"pom.xml", "package.json"})
+        {
+            File file = projectDir.resolve(fileName).toFile();
+            if (file.exists())
+            {
+                context.fileSystem().add(TestInputFileBuilder.create("projectKey", projectDir.toFile(), file)
+                    .setCharset(StandardCharsets.UTF_8)
+                    .initMetadata(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                    .build());
+            }
+        }
+        return context;
+    }
+
+    /**
+     * @return the licenses and license mappings imported on a new server (with some licenses allowed), a few
+     *     dependency mappings and transitive NPM dependencies - the Maven license cache and the dependency cache are
+     *     disabled, so every analysis resolves and reads all POMs
+     */
+    public static MapSettings createSettings() throws IOException
+    {
+        MapSettings settings = new MapSettings();
+        List<License> licenses = License.fromString(readResource(License.class, "spdx_license_list.json"));
+        settings.setProperty(LICENSE_SET, indexes(licenses.size()));
+        for (int i = 0; i < licenses.size(); i++)
+        {
+            String idxProp = LICENSE_SET + "." + (i + 1) + ".";
+            settings.setProperty(idxProp + License.FIELD_NAME, licenses.get(i).getName());
+            settings.setProperty(idxProp + License.FIELD_ID, licenses.get(i).getIdentifier());
+            settings.setProperty(idxProp + License.FIELD_ALLOWED,
+                String.valueOf(ALLOWED_LICENSES.contains(licenses.get(i).getIdentifier())));
+        }
+        List<LicenseMapping> licenseMappings =
+            LicenseMapping.fromString(readResource(LicenseMapping.class, "default_license_mapping.json"));
+        settings.setProperty(LICENSE_MAPPING, indexes(licenseMappings.size()));
+        for (int i = 0; i < licenseMappings.size(); i++)
+        {
+            String idxProp = LICENSE_MAPPING + "." + (i + 1) + ".";
+            settings.setProperty(idxProp + LicenseMapping.FIELD_REGEX, licenseMappings.get(i).getRegex().pattern());
+            settings.setProperty(idxProp + LicenseMapping.FIELD_LICENSE, licenseMappings.get(i).getLicense());
+        }
+        settings.setProperty(DEPENDENCY_MAPPING, "1,2");
+        settings.setProperty(DEPENDENCY_MAPPING + ".1." + DependencyMapping.FIELD_KEY, "org\\.fixture\\.group1:.*");
+        settings.setProperty(DEPENDENCY_MAPPING + ".1." + DependencyMapping.FIELD_LICENSE, "Apache-2.0");
+        settings.setProperty(DEPENDENCY_MAPPING + ".1." + DependencyMapping.FIELD_OVERWRITE, "true");
+        settings.setProperty(DEPENDENCY_MAPPING + ".2." + DependencyMapping.FIELD_KEY, "fixture-pod-.*");
+        settings.setProperty(DEPENDENCY_MAPPING + ".2." + DependencyMapping.FIELD_LICENSE, "MIT");
+        settings.setProperty(DEPENDENCY_MAPPING + ".2." + DependencyMapping.FIELD_OVERWRITE, "false");
+        settings.setProperty(LicenseCheckPropertyKeys.NPM_RESOLVE_TRANSITIVE_DEPS, "true");
+        settings.setProperty(LicenseCheckPropertyKeys.MAVEN_LICENSE_CACHE, "false");
+        settings.setProperty(LicenseCheckPropertyKeys.DEPENDENCY_CACHE, "false");
+        return settings;
+    }
+
+    /**
+     * @return the sensor with the extensions it needs, as created by the scanner
+     */
+    public static LicenseCheckSensor createSensor(SensorContextTester context)
+    {
+        Configuration configuration = context.config();
+        ProjectLicenseService projectLicenseService = new ProjectLicenseService(configuration);
+        LicenseMappingService licenseMappingService = new LicenseMappingService(configuration);
+        LicensePolicyLoader licensePolicyLoader = new LicensePolicyLoader(
+            new LicenseService(configuration, projectLicenseService), projectLicenseService, licenseMappingService,
+            new DependencyMappingService(configuration));
+        return new LicenseCheckSensor(context.fileSystem(), configuration, new ValidateLicenses(licensePolicyLoader),
+            licenseMappingService, new DependencyAggregator(), new AnalysisStatistics(),
+            new DependencyCache(configuration));
+    }
+
+    private void generateMaven() throws IOException
+    {
+        for (int group = 0; group < MAVEN_GROUPS; group++)
+        {
+            for (int level = 0; level < parentDepth; level++)
+            {
+                String parent = level > 0 ? parentXml(group, level - 1) : "";
+                // every seventh group does not declare any license
+                String licenses = level == 0 && group % 7 != 6 ? licensesXml(LICENSE_NAMES[group % 2]) : "";
+                write(pomPath(mavenGroupId(group), "parent-" + level, "1.0"),
+                    pomXml(mavenGroupId(group), "parent-" + level, "1.0", "pom", parent + licenses));
+            }
+        }
+
+        StringBuilder dependencyList = new StringBuilder("\nThe following files have been resolved:\n");
+        for (int i = 0; i < mavenDependencies; i++)
+        {
+            int group = i % MAVEN_GROUPS;
+            String groupId = mavenGroupId(group);
+            String artifactId = "artifact-" + i;
+            String version = i % 15 == 0 ? "1." + i % 10 + "-SNAPSHOT" : "1." + i % 10 + ".0";
+            String parent = parentDepth > 0 ? parentXml(group, parentDepth - 1) : "";
+            String licenses = i % 3 == 0 ? licensesXml(LICENSE_NAMES[i % LICENSE_NAMES.length]) : "";
+            Path pom = pomPath(groupId, artifactId, version);
+            write(pom, pomXml(groupId, artifactId, version, "jar", parent + licenses));
+
+            String jar = pom.toAbsolutePath().toString().replaceFirst("\\.pom$", "");
+            if (i % 10 == 9)
+            {
+                dependencyList.append("   ").append(groupId).append(':').append(artifactId).append(":jar:tests:")
+                    .append(version).append(":compile:").append(jar).append("-tests.jar\n");
+            }
+            else
+            {
+                dependencyList.append("   ").append(groupId).append(':').append(artifactId).append(":jar:")
+                    .append(version).append(":compile:").append(jar).append(".jar -- module ")
+                    .append(artifactId.replace('-', '.')).append(" (auto)\n");
+            }
+        }
+        write(mavenHome.resolve("dependency-list.txt"), dependencyList.toString());
+
+        // the dependency plugin writes the list to the file given as -DoutputFile (relative to the POM directory)
+        Path mvn = mavenHome.resolve("bin/mvn");
+        write(mvn, "#!/bin/sh\n"
+            + "output=\n"
+            + "for arg in \"$@\"; do\n"
+            + "  case \"$arg\" in\n"
+            + "    -DoutputFile=*) output=\"${arg#-DoutputFile=}\" ;;\n"
+            + "    outputFile=*) output=\"${arg#outputFile=}\" ;;\n"
+            + "  esac\n"
+            + "done\n"
+            + "[ -n \"$output\" ] || { echo '[ERROR] No outputFile'; exit 1; }\n"
+            + "mkdir -p \"$(dirname \"$output\")\"\n"
+            + "cp \"" + mavenHome.resolve("dependency-list.txt").toAbsolutePath() + "\" \"$output\"\n");
+        if (!mvn.toFile().setExecutable(true))
+        {
+            throw new IOException("Could not make " + mvn + " executable");
+        }
+
+        write(projectDir.resolve("pom.xml"), pomXml("org.fixture", "fixture-project", "1.0.0", "jar", ""));
+    }
+
+    private static String mavenGroupId(int group)
+    {
+        return "org.fixture.group" + group;
+    }
+
+    private Path pomPath(String groupId, String artifactId, String version)
+    {
+        return mavenRepository.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version)
+            .resolve(artifactId + "-" + version + ".pom");
+    }
+
+    private static String parentXml(int group, int level)
+    {
+        return "  <parent>\n"
+            + "    <groupId>" + mavenGroupId(group) + "</groupId>\n"
+            + "    <artifactId>parent-" + level + "</artifactId>\n"
+            + "    <version>1.0</version>\n"
+            + "  </parent>\n";
+    }
+
+    private static String licensesXml(String licenseName)
+    {
+        return "  <licenses>\n"
+            + "    <license>\n"
+            + "      <name>" + licenseName + "</name>\n"
+            + "      <distribution>repo</distribution>\n"
+            + "    </license>\n"
+            + "  </licenses>\n";
+    }
+
+    private static String pomXml(String groupId, String artifactId, String version, String packaging, String body)
+    {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+            + "  <modelVersion>4.0.0</modelVersion>\n"
+            + body
+            + "  <groupId>" + groupId + "</groupId>\n"
+            + "  <artifactId>" + artifactId + "</artifactId>\n"
+            + "  <version>" + version + "</version>\n"
+            + "  <packaging>" + packaging + "</packaging>\n"
+            + "</project>\n";
+    }
+
+    /**
+     * Package <code>i</code> depends on the packages <code>NPM_CHILDREN * i + NPM_DIRECT_DEPENDENCIES</code> and
+     * following, so all packages are reachable from the direct dependencies. Every tenth transitive package is
+     * installed in the <code>node_modules</code> of the package requiring it instead of the top level.
+     */
+    private void generateNpm() throws IOException
+    {
+        int directCount = Math.min(npmPackages, NPM_DIRECT_DEPENDENCIES);
+        List<Path> packageDirs = new ArrayList<>(npmPackages);
+        for (int i = 0; i < npmPackages; i++)
+        {
+            Path parentDir = projectDir;
+            if (i >= directCount && i % 10 == 9)
+            {
+                parentDir = packageDirs.get((i - directCount) / NPM_CHILDREN);
+            }
+            packageDirs.add(parentDir.resolve("node_modules").resolve(npmName(i)));
+        }
+
+        for (int i = 0; i < npmPackages; i++)
+        {
+            JsonObjectBuilder dependencies = Json.createObjectBuilder();
+            for (int child = NPM_CHILDREN * i + directCount;
+                child < Math.min(NPM_CHILDREN * (i + 1) + directCount, npmPackages); child++)
+            {
+                dependencies.add(npmName(child), "^" + npmVersion(child));
+            }
+            JsonObjectBuilder packageJson = Json.createObjectBuilder()
+                .add("name", npmName(i))
+                .add("version", npmVersion(i))
+                .add("dependencies", dependencies);
+            String license = LICENSE_NAMES[i % LICENSE_NAMES.length];
+            if (i % 11 == 0)
+            {
+                // deprecated format, still common in older packages
+                packageJson.add("licenses", Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder().add("type", license).add("url", "https://example.org/license")));
+            }
+            else if (i % 13 != 0)
+            {
+                packageJson.add("license", license);
+            }
+            write(packageDirs.get(i).resolve("package.json"), toJson(packageJson.build()));
+        }
+
+        JsonObjectBuilder dependencies = Json.createObjectBuilder();
+        for (int i = 0; i < directCount; i++)
+        {
+            dependencies.add(npmName(i), "^" + npmVersion(i));
+        }
+        write(projectDir.resolve("package.json"), toJson(Json.createObjectBuilder()
+            .add("name", "fixture-project")
+            .add("version", "1.0.0")
+            .add("dependencies", dependencies)
+            .add("devDependencies", Json.createObjectBuilder().add("fixture-dev-tool", "^1.0.0"))
+            .build()));
+    }
+
+    private static String npmName(int index)
+    {
+        return index % 7 == 0 ? "@fixture/package-" + index : "fixture-package-" + index;
+    }
+
+    private static String npmVersion(int index)
+    {
+        return (1 + index % 4) + "." + index % 10 + ".0";
+    }
+
+    /**
+     * A root project and a subproject, each with its own report. The subproject also uses some dependencies of the
+     * root project.
+     */
+    private void generateGradle() throws IOException
+    {
+        int rootCount = (gradleDependencies + 1) / 2;
+        write(projectDir.resolve("build/reports/dependency-license/license-details.json"),
+            gradleReport(IntStream.range(0, rootCount)));
+        write(projectDir.resolve("subproject/build/reports/dependency-license/license-details.json"),
+            gradleReport(IntStream.range(Math.max(0, rootCount - 10), gradleDependencies)));
+    }
+
+    private static String gradleReport(IntStream indexes)
+    {
+        JsonArrayBuilder dependencies = Json.createArrayBuilder();
+        indexes.forEach(i -> {
+            JsonObjectBuilder dependency = Json.createObjectBuilder()
+                .add("moduleName", "com.fixture.gradle" + i % MAVEN_GROUPS + ":library-" + i)
+                .add("moduleVersion", "2." + i % 10 + ".1")
+                .add("moduleUrls", Json.createArrayBuilder().add("https://example.org/library-" + i));
+            if (i % 17 != 0)
+            {
+                dependency.add("moduleLicenses", Json.createArrayBuilder().add(Json.createObjectBuilder()
+                    .add("moduleLicense", LICENSE_NAMES[i % LICENSE_NAMES.length])
+                    .add("moduleLicenseUrl", "https://example.org/license")));
+            }
+            dependencies.add(dependency);
+        });
+        return toJson(Json.createObjectBuilder().add("dependencies", dependencies).build());
+    }
+
+    private static String licenseFinderReport(String namePrefix, int count)
+    {
+        JsonArrayBuilder dependencies = Json.createArrayBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            dependencies.add(Json.createObjectBuilder()
+                .add("name", namePrefix + i)
+                .add("version", "0." + i % 10 + "." + i % 3)
+                .add("licenses", Json.createArrayBuilder()
+                    .add(i % 19 == 0 ? "unknown" : LICENSE_NAMES[i % LICENSE_NAMES.length])));
+        }
+        return toJson(Json.createObjectBuilder().add("dependencies", dependencies).build());
+    }
+
+    private static String toJson(JsonObject json)
+    {
+        StringWriter jsonString = new StringWriter();
+        try (JsonGenerator generator = Json.createGenerator(jsonString))
+        {
+            generator.write(json);
+        }
+        return jsonString.toString();
+    }
+
+    private static String readResource(Class<?> type, String name) throws IOException
+    {
+        try (InputStream inputStream = type.getResourceAsStream(name))
+        {
+            return IOUtils.readToString(inputStream);
+        }
+    }
+
+    private static String indexes(int count)
+    {
+        return IntStream.rangeClosed(1, count).mapToObj(Integer::toString).collect(Collectors.joining(","));
+    }
+
+    private static void write(Path file, String content) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
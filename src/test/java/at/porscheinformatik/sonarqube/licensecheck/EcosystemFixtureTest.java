@@ -0,0 +1,104 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+
+public class EcosystemFixtureTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Map<String, String> previousSystemProperties = new HashMap<>();
+    private EcosystemFixture fixture;
+
+    @Before
+    public void setup() throws IOException
+    {
+        // Maven is replaced by a shell script
+        assumeFalse(System.getProperty("os.name").startsWith("Windows"));
+
+        fixture = new EcosystemFixture(temporaryFolder.getRoot().toPath()).all(60, 3).generate();
+        fixture.getSystemProperties().forEach((key, value) -> {
+            previousSystemProperties.put(key, System.getProperty(key));
+            System.setProperty(key, value);
+        });
+    }
+
+    @After
+    public void restoreSystemProperties()
+    {
+        previousSystemProperties.forEach((key, value) -> {
+            if (value == null)
+            {
+                System.clearProperty(key);
+            }
+            else
+            {
+                System.setProperty(key, value);
+            }
+        });
+    }
+
+    @Test
+    public void sensorFindsAllGeneratedDependencies() throws IOException
+    {
+        SensorContextTester context = fixture.createContext();
+
+        EcosystemFixture.createSensor(context).execute(context);
+
+        assertThat(context.<Integer>measure("projectKey", LicenseCheckMetrics.NO_DEPENDENCIES.key()).value(),
+            is(fixture.getDependencyCount()));
+        Map<String, Dependency> dependencies = DependencyMeasure.decode(context.<String>measure("projectKey",
+            LicenseCheckMetrics.DEPENDENCY.key()).value())
+            .stream()
+            .collect(Collectors.toMap(Dependency::getName, Function.identity()));
+        // license of the topmost parent POM
+        assertThat(dependencies.get("org.fixture.group0:artifact-20").getLicense(), is("Apache-2.0"));
+        // classifier
+        assertThat(dependencies.get("org.fixture.group9:artifact-9").getLicense(), is("CDDL-1.0"));
+        // dependency mapping overwrites the license of the POM
+        assertThat(dependencies.get("org.fixture.group1:artifact-21").getLicense(), is("Apache-2.0"));
+        // installed in node_modules of the package requiring it
+        assertThat(dependencies.get("fixture-package-29").getLicense(), is("EPL-1.0"));
+        assertThat(dependencies.get("com.fixture.gradle1:library-41").getLicense(), is("EPL-1.0"));
+        assertThat(dependencies.get("fixture_package_2").getLicense(), is("MIT"));
+        // one Maven invocation for the single pom.xml
+        assertThat(context.<Integer>measure("projectKey", LicenseCheckMetrics.PROCESSES_FORKED.key()).value(), is(1));
+        assertThat(context.<Integer>measure("projectKey", LicenseCheckMetrics.POMS_PARSED.key()).value() > 0,
+            is(true));
+    }
+
+    @Test
+    public void sameCountsGenerateSameFiles() throws IOException
+    {
+        EcosystemFixture other =
+            new EcosystemFixture(temporaryFolder.newFolder("other").toPath()).all(60, 3).generate();
+
+        assertThat(read(other, "package.json"), is(read(fixture, "package.json")));
+        assertThat(read(other, "node_modules/fixture-package-1/package.json"),
+            is(read(fixture, "node_modules/fixture-package-1/package.json")));
+        assertThat(read(other, "build/reports/dependency-license/license-details.json"),
+            is(read(fixture, "build/reports/dependency-license/license-details.json")));
+    }
+
+    private static String read(EcosystemFixture fixture, String file) throws IOException
+    {
+        return new String(Files.readAllBytes(fixture.getProjectDir().resolve(file)), StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,7 @@
 package at.porscheinformatik.sonarqube.licensecheck;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.anyVararg;
@@ -8,13 +10,27 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputModule;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -23,8 +39,10 @@ import org.sonar.api.batch.sensor.measure.NewMeasure;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.scanner.fs.InputProject;
 
+import at.porscheinformatik.sonarqube.licensecheck.gradle.GradleDependencyScanner;
 import at.porscheinformatik.sonarqube.licensecheck.license.License;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
 
 public class LicenseCheckSensorTest
 {
@@ -32,11 +50,16 @@ public class LicenseCheckSensorTest
     public static final Set<Dependency> DEPENDENCIES = Collections.singleton(new Dependency("name", "1.0.0", "MIT"));
     private static final Set<License> LICENSES = Collections.singleton(new License("MIT", "MIT", true));
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void describe()
     {
         Configuration configuration = createConfiguration();
-        LicenseCheckSensor sensor = new LicenseCheckSensor(null, configuration, null, null);
+        LicenseCheckSensor sensor =
+            new LicenseCheckSensor(null, configuration, null, null, new DependencyAggregator(),
+                new AnalysisStatistics(), DependencyCache.disabled());
         SensorDescriptor descriptor = mock(SensorDescriptor.class);
         when(descriptor.name(anyString())).thenReturn(descriptor);
 
@@ -55,7 +78,8 @@ public class LicenseCheckSensorTest
         when(validateLicenses.validateLicenses(any(), any())).thenReturn(DEPENDENCIES);
         when(validateLicenses.getUsedLicenses(any(), any())).thenReturn(LICENSES);
         LicenseMappingService licenseMappingService = mock(LicenseMappingService.class);
-        LicenseCheckSensor sensor = new LicenseCheckSensor(fs, configuration, validateLicenses, licenseMappingService);
+        LicenseCheckSensor sensor = new LicenseCheckSensor(fs, configuration, validateLicenses, licenseMappingService,
+            new DependencyAggregator(), new AnalysisStatistics(), DependencyCache.disabled());
         Scanner mockScanner = mock(Scanner.class);
         when(mockScanner.scan(any())).thenReturn(DEPENDENCIES);
         Scanner[] scanners = new Scanner[]{mockScanner};
@@ -75,7 +99,196 @@ public class LicenseCheckSensorTest
 
         sensor.execute(context);
 
-        verify(measure, times(7)).save(); // 5 metrics + dependencies + licenses
+        verify(measure, times(20)).save(); // 5 metrics + dependencies + licenses + 13 timings and counters
+    }
+
+    @Test
+    public void writesTimingReport() throws IllegalAccessException, IOException
+    {
+        FileSystem fs = mock(FileSystem.class);
+        when(fs.workDir()).thenReturn(temporaryFolder.getRoot());
+        ValidateLicenses validateLicenses = mock(ValidateLicenses.class);
+        when(validateLicenses.validateLicenses(any(), any())).thenReturn(DEPENDENCIES);
+        when(validateLicenses.getUsedLicenses(any(), any())).thenReturn(LICENSES);
+        LicenseCheckSensor sensor = new LicenseCheckSensor(fs, createConfiguration(), validateLicenses,
+            mock(LicenseMappingService.class), new DependencyAggregator(), new AnalysisStatistics(),
+            DependencyCache.disabled());
+        Scanner scanner = mock(Scanner.class);
+        when(scanner.scan(any())).thenReturn(DEPENDENCIES);
+        FieldUtils.writeField(sensor, "scanners", new Scanner[]{scanner}, true);
+        SensorContext context = mock(SensorContext.class);
+        InputProject project = mock(InputProject.class);
+        when(project.key()).thenReturn("myproject");
+        InputModule module = mock(InputModule.class);
+        when(module.key()).thenReturn("myproject");
+        when(context.project()).thenReturn(project);
+        when(context.module()).thenReturn(module);
+        when(context.fileSystem()).thenReturn(fs);
+        NewMeasure measure = mock(NewMeasure.class);
+        when(measure.forMetric(any())).thenReturn(measure);
+        when(measure.withValue(any())).thenReturn(measure);
+        when(measure.on(any())).thenReturn(measure);
+        when(context.newMeasure()).thenReturn(measure);
+
+        sensor.execute(context);
+
+        File report = new File(temporaryFolder.getRoot(), LicenseCheckSensor.TIMING_REPORT);
+        try (JsonReader jsonReader = Json.createReader(new FileInputStream(report)))
+        {
+            JsonObject timing = jsonReader.readObject();
+            assertThat(timing.getString("project"), is("myproject"));
+            assertThat(timing.getInt("dependencies"), is(DEPENDENCIES.size()));
+            assertThat(timing.getJsonObject("scanners").containsKey(scanner.getClass().getSimpleName()), is(true));
+        }
+        verify(measure).forMetric(LicenseCheckMetrics.TIME_TOTAL);
+        verify(measure).forMetric(LicenseCheckMetrics.FILES_READ);
+    }
+
+    @Test
+    public void scannersRunConcurrently() throws IllegalAccessException
+    {
+        Configuration configuration = createConfiguration();
+        ValidateLicenses validateLicenses = mock(ValidateLicenses.class);
+        when(validateLicenses.validateLicenses(any(), any())).thenReturn(DEPENDENCIES);
+        when(validateLicenses.getUsedLicenses(any(), any())).thenReturn(LICENSES);
+        LicenseCheckSensor sensor = new LicenseCheckSensor(mock(FileSystem.class), configuration, validateLicenses,
+            mock(LicenseMappingService.class), new DependencyAggregator(), new AnalysisStatistics(),
+            DependencyCache.disabled());
+        CountDownLatch started = new CountDownLatch(2);
+        Scanner npmScanner = mock(Scanner.class);
+        when(npmScanner.scan(any())).thenAnswer(invocation -> awaitOther(started,
+            new Dependency("npm-thing", "1.0", "MIT")));
+        Scanner mavenScanner = mock(Scanner.class);
+        when(mavenScanner.scan(any())).thenAnswer(invocation -> awaitOther(started,
+            new Dependency("maven-thing", "1.0", "MIT")));
+        FieldUtils.writeField(sensor, "scanners", new Scanner[]{npmScanner, mavenScanner}, true);
+        SensorContext context = mock(SensorContext.class);
+        InputProject project = mock(InputProject.class);
+        when(project.key()).thenReturn("myproject");
+        InputModule module = mock(InputModule.class);
+        when(module.key()).thenReturn("mymodule");
+        when(context.project()).thenReturn(project);
+        when(context.module()).thenReturn(module);
+
+        sensor.execute(context);
+
+        ArgumentCaptor<Set> dependencies = ArgumentCaptor.forClass(Set.class);
+        verify(validateLicenses).validateLicenses(dependencies.capture(), any());
+        assertThat(dependencies.getValue().size(), is(2));
+    }
+
+    @Test
+    public void aggregatesModulesUntilRootModule() throws IllegalAccessException
+    {
+        Configuration configuration = createConfiguration();
+        ValidateLicenses validateLicenses = mock(ValidateLicenses.class);
+        when(validateLicenses.validateLicenses(any(), any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(validateLicenses.getUsedLicenses(any(), any())).thenReturn(LICENSES);
+        DependencyAggregator dependencyAggregator = new DependencyAggregator();
+        File cacheFile = new File(temporaryFolder.getRoot(), "dependencies.json");
+        DependencyCache dependencyCache = new DependencyCache(cacheFile.toPath());
+        LicenseCheckSensor sensor = new LicenseCheckSensor(mock(FileSystem.class), configuration, validateLicenses,
+            mock(LicenseMappingService.class), dependencyAggregator, new AnalysisStatistics(), dependencyCache);
+        Scanner scanner = mock(Scanner.class);
+        when(scanner.scan(any()))
+            .thenAnswer(invocation -> {
+                dependencyCache.put("test:module", "hash",
+                    Collections.singletonList(new Dependency("module-thing", "1.0", "MIT")));
+                return Collections.singleton(new Dependency("module-thing", "1.0", "MIT"));
+            })
+            .thenReturn(Collections.singleton(new Dependency("root-thing", "1.0", "MIT")));
+        FieldUtils.writeField(sensor, "scanners", new Scanner[]{scanner}, true);
+        InputProject project = mock(InputProject.class);
+        when(project.key()).thenReturn("myproject");
+        NewMeasure measure = mock(NewMeasure.class);
+        when(measure.forMetric(any())).thenReturn(measure);
+        when(measure.withValue(any())).thenReturn(measure);
+        when(measure.on(any())).thenReturn(measure);
+
+        SensorContext moduleContext = mock(SensorContext.class);
+        InputModule module = mock(InputModule.class);
+        when(module.key()).thenReturn("myproject:module");
+        when(moduleContext.project()).thenReturn(project);
+        when(moduleContext.module()).thenReturn(module);
+        sensor.execute(moduleContext);
+
+        assertThat(dependencyAggregator.getDependencies().size(), is(1));
+        assertThat(cacheFile.exists(), is(false));
+
+        SensorContext rootContext = mock(SensorContext.class);
+        InputModule rootModule = mock(InputModule.class);
+        when(rootModule.key()).thenReturn("myproject");
+        when(rootContext.project()).thenReturn(project);
+        when(rootContext.module()).thenReturn(rootModule);
+        when(rootContext.newMeasure()).thenReturn(measure);
+        sensor.execute(rootContext);
+
+        verify(measure).withValue(DependencyMeasure.encode(Arrays.asList(
+            new Dependency("module-thing", "1.0", "MIT"),
+            new Dependency("root-thing", "1.0", "MIT")), false));
+        assertThat(dependencyAggregator.getDependencies().isEmpty(), is(true));
+        assertThat(dependencyAggregator.getLicenses().isEmpty(), is(true));
+        assertThat(cacheFile.exists(), is(true));
+    }
+
+    @Test
+    public void gradleSubprojectModulesAreNotScannedAgainByRootModule() throws IllegalAccessException
+    {
+        File projectDir = new File("src/test/resources/gradle_multi_project");
+        ValidateLicenses validateLicenses = mock(ValidateLicenses.class);
+        when(validateLicenses.validateLicenses(any(), any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(validateLicenses.getUsedLicenses(any(), any())).thenReturn(LICENSES);
+        LicenseMappingService licenseMappingService = mock(LicenseMappingService.class);
+        when(licenseMappingService.getLicenseMatcher()).thenReturn(LicenseMatcher.of(Collections.emptyList()));
+        DependencyAggregator dependencyAggregator = new DependencyAggregator();
+        LicenseCheckSensor sensor = new LicenseCheckSensor(mock(FileSystem.class), createConfiguration(),
+            validateLicenses, licenseMappingService, dependencyAggregator, new AnalysisStatistics(),
+            DependencyCache.disabled());
+        FieldUtils.writeField(sensor, "scanners", new Scanner[]{new GradleDependencyScanner(licenseMappingService,
+            new AnalysisStatistics(), dependencyAggregator.getModuleDirs(), DependencyCache.disabled())}, true);
+        NewMeasure measure = mock(NewMeasure.class);
+        when(measure.forMetric(any())).thenReturn(measure);
+        when(measure.withValue(any())).thenReturn(measure);
+        when(measure.on(any())).thenReturn(measure);
+
+        // submodules are analyzed before the root module
+        sensor.execute(createModuleContext(new File(projectDir, "app"), "myproject:app", measure));
+        sensor.execute(createModuleContext(new File(projectDir, "libs/lib"), "myproject:lib", measure));
+        sensor.execute(createModuleContext(projectDir, "myproject", measure));
+
+        // an issue is raised for each validated dependency of a module
+        ArgumentCaptor<Set> dependencies = ArgumentCaptor.forClass(Set.class);
+        verify(validateLicenses, times(3)).validateLicenses(dependencies.capture(), any());
+        List<Set> validated = dependencies.getAllValues();
+        assertThat(validated.get(0).size(), is(2));
+        assertThat(validated.get(1).size(), is(2));
+        assertThat(validated.get(2).size(), is(1));
+        assertThat(((Dependency) validated.get(2).iterator().next()).getName(), is("org.example:shared"));
+    }
+
+    private static SensorContext createModuleContext(File moduleDir, String moduleKey, NewMeasure measure)
+    {
+        FileSystem fs = mock(FileSystem.class);
+        when(fs.baseDir()).thenReturn(moduleDir);
+        InputProject project = mock(InputProject.class);
+        when(project.key()).thenReturn("myproject");
+        InputModule module = mock(InputModule.class);
+        when(module.key()).thenReturn(moduleKey);
+        SensorContext context = mock(SensorContext.class);
+        when(context.fileSystem()).thenReturn(fs);
+        when(context.project()).thenReturn(project);
+        when(context.module()).thenReturn(module);
+        when(context.newMeasure()).thenReturn(measure);
+        return context;
+    }
+
+    private static Set<Dependency> awaitOther(CountDownLatch started, Dependency dependency)
+        throws InterruptedException
+    {
+        started.countDown();
+        // only returns in time if the other scanner runs at the same time
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        return Collections.singleton(dependency);
     }
 
     @NotNull
@@ -84,7 +297,14 @@ public class LicenseCheckSensorTest
         Configuration configuration = mock(Configuration.class);
         when(configuration.getBoolean(LicenseCheckPropertyKeys.NPM_RESOLVE_TRANSITIVE_DEPS))
             .thenReturn(Optional.empty());
+        when(configuration.getBoolean(LicenseCheckPropertyKeys.NPM_USE_LOCKFILE)).thenReturn(Optional.empty());
+        when(configuration.getInt(LicenseCheckPropertyKeys.MAVEN_PARALLELISM)).thenReturn(Optional.empty());
+        when(configuration.getBoolean(LicenseCheckPropertyKeys.MAVEN_REACTOR)).thenReturn(Optional.empty());
+        when(configuration.getBoolean(LicenseCheckPropertyKeys.MAVEN_LICENSE_CACHE)).thenReturn(Optional.of(false));
+        when(configuration.getBoolean(LicenseCheckPropertyKeys.DEPENDENCY_CACHE)).thenReturn(Optional.of(false));
         when(configuration.getBoolean(LicenseCheckPropertyKeys.ACTIVATION_KEY)).thenReturn(Optional.of(true));
+        when(configuration.getBoolean(LicenseCheckPropertyKeys.DEPENDENCY_MEASURE_COMPRESS))
+            .thenReturn(Optional.empty());
         return configuration;
     }
 }
@@ -0,0 +1,58 @@
+package at.porscheinformatik.sonarqube.licensecheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMapping;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
+import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicense;
+
+public class LicensePolicyTest
+{
+    private final LicensePolicy licensePolicy = LicensePolicy.of(
+        Arrays.asList(new License("MIT License", "MIT", true), new License("GNU GPL v3", "GPL-3.0", false)),
+        Arrays.asList(new ProjectLicense("my-project", "GPL-3.0", true),
+            new ProjectLicense("other-project", "MIT", false)),
+        LicenseMatcher.of(Collections.emptyList()),
+        Collections.singletonList(new DependencyMapping("org\\.example:.*", "MIT", false)));
+
+    @Test
+    public void projectLicenses()
+    {
+        assertThat(licensePolicy.getLicenseCatalog("my-project").isAllowed("GPL-3.0"), is(true));
+        assertThat(licensePolicy.getLicenseCatalog("my-project").isAllowed("MIT"), is(true));
+        assertThat(licensePolicy.getLicenseCatalog("other-project").isAllowed("MIT"), is(false));
+        assertThat(licensePolicy.getLicenseCatalog("another-project").isAllowed("GPL-3.0"), is(false));
+        assertThat(licensePolicy.getLicenseCatalog(null).isAllowed("GPL-3.0"), is(false));
+        assertThat(licensePolicy.getLicenses().get(1).getAllowed(), is(false));
+    }
+
+    @Test
+    public void catalogIsBuiltOncePerProject()
+    {
+        assertThat(licensePolicy.getLicenseCatalog("my-project"),
+            sameInstance(licensePolicy.getLicenseCatalog("my-project")));
+    }
+
+    @Test
+    public void licenseExpressionsAreParsedOncePerPolicy()
+    {
+        assertThat(licensePolicy.getLicenseExpression("MIT OR GPL-3.0"),
+            sameInstance(licensePolicy.getLicenseExpression("MIT OR GPL-3.0")));
+        assertThat(licensePolicy.getLicenseExpression("MIT OR GPL-3.0").toString(), is("MIT OR GPL-3.0"));
+    }
+
+    @Test
+    public void dependencyMappings()
+    {
+        assertThat(licensePolicy.getDependencyMatcher().getLicense("org.example:lib", null), is("MIT"));
+        assertThat(licensePolicy.getDependencyMatcher().getLicense("org.other:lib", "Apache-2.0"), is("Apache-2.0"));
+    }
+}
@@ -1,31 +1,43 @@
 package at.porscheinformatik.sonarqube.licensecheck;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.Set;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.sensor.SensorContext;
 
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
 import at.porscheinformatik.sonarqube.licensecheck.npm.PackageJsonDependencyScanner;
 
 public class PackageJsonDependencyScannerTest
 {
     private static final File RESOURCE_FOLDER = new File("src/test/resources");
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private SensorContext createContext(File folder)
     {
         SensorContext context = mock(SensorContext.class);
@@ -71,6 +83,20 @@ public class PackageJsonDependencyScannerTest
             new Dependency("retry", "0.10.1", "MIT")));
     }
 
+    @Test
+    public void testTransitiveNestedNodeModules()
+    {
+        Set<Dependency> dependencies =
+            createScanner(true).scan(createContext(new File(RESOURCE_FOLDER, "nested_project")));
+
+        assertThat(dependencies, hasSize(4));
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("a", "1.0.0", "MIT"),
+            new Dependency("b", "1.0.0", "MIT"),
+            new Dependency("c", "1.0.0", "BSD-3-Clause"),
+            new Dependency("c", "2.0.0", "ISC")));
+    }
+
     @Test
     public void testNoPackageJson()
     {
@@ -109,15 +135,133 @@ public class PackageJsonDependencyScannerTest
         assertEquals(expectedDependency, dependencies.toArray()[0]);
     }
 
+    @Test
+    public void testLockfile()
+    {
+        Set<Dependency> dependencies =
+            createScanner(false, true).scan(createContext(new File(RESOURCE_FOLDER, "lockfile_project")));
+
+        assertThat(dependencies, hasSize(2));
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("angular", "1.5.0", "MIT"),
+            new Dependency("@scope/util", "2.1.0", "Apache-2.0")));
+    }
+
+    @Test
+    public void testLockfileTransitive()
+    {
+        Set<Dependency> dependencies =
+            createScanner(true, true).scan(createContext(new File(RESOURCE_FOLDER, "lockfile_project")));
+
+        assertThat(dependencies, hasSize(3));
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("angular", "1.5.0", "MIT"),
+            new Dependency("@scope/util", "2.1.0", "Apache-2.0"),
+            new Dependency("retry", "0.10.1", "MIT")));
+    }
+
+    @Test
+    public void testLockfileVersion1UsesNodeModules()
+    {
+        Set<Dependency> dependencies =
+            createScanner(false, true).scan(createContext(new File(RESOURCE_FOLDER, "lockfile_v1_project")));
+
+        assertThat(dependencies, hasSize(1));
+        assertThat(dependencies, containsInAnyOrder(new Dependency("retry", "0.10.1", "MIT")));
+    }
+
+    @Test
+    public void testUnchangedLockfileFromDependencyCache()
+    {
+        File cacheFile = new File(temporaryFolder.getRoot(), "dependencies.json");
+        DependencyCache dependencyCache = new DependencyCache(cacheFile.toPath());
+        new PackageJsonDependencyScanner(createLicenseMappingService(), false, true, new AnalysisStatistics(),
+            dependencyCache).scan(createContext(new File(RESOURCE_FOLDER, "lockfile_project")));
+        dependencyCache.save();
+
+        LicenseMappingService licenseMappingService = createLicenseMappingService();
+        AnalysisStatistics statistics = new AnalysisStatistics();
+        Set<Dependency> dependencies = new PackageJsonDependencyScanner(licenseMappingService, false, true, statistics,
+            new DependencyCache(cacheFile.toPath())).scan(createContext(new File(RESOURCE_FOLDER, "lockfile_project")));
+
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("angular", "1.5.0", "MIT"),
+            new Dependency("@scope/util", "2.1.0", "Apache-2.0")));
+        assertThat(statistics.get(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS), is(1L));
+        verify(licenseMappingService, never()).mapLicense(anyString());
+    }
+
+    @Test
+    public void testPackageJsonFilesSharingLockfileFromDependencyCache() throws IOException
+    {
+        File moduleDir = temporaryFolder.newFolder("module");
+        Files.copy(new File(RESOURCE_FOLDER, "lockfile_project/package-lock.json").toPath(),
+            moduleDir.toPath().resolve("package-lock.json"));
+        File cacheFile = new File(temporaryFolder.getRoot(), "dependencies.json");
+        DependencyCache dependencyCache = new DependencyCache(cacheFile.toPath());
+        new PackageJsonDependencyScanner(createLicenseMappingService(), false, true, new AnalysisStatistics(),
+            dependencyCache).scan(createContextWithTwoPackageJsons(moduleDir));
+        dependencyCache.save();
+
+        AnalysisStatistics statistics = new AnalysisStatistics();
+        Set<Dependency> dependencies = new PackageJsonDependencyScanner(createLicenseMappingService(), false, true,
+            statistics, new DependencyCache(cacheFile.toPath())).scan(createContextWithTwoPackageJsons(moduleDir));
+
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("angular", "1.5.0", "MIT"),
+            new Dependency("@scope/util", "2.1.0", "Apache-2.0")));
+        assertThat(statistics.get(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS), is(2L));
+    }
+
+    /**
+     * @return a context with two <code>package.json</code> files, one for each package of the lockfile
+     */
+    private SensorContext createContextWithTwoPackageJsons(File moduleDir) throws IOException
+    {
+        SensorContext context = mock(SensorContext.class);
+        DefaultFileSystem fileSystem = new DefaultFileSystem(moduleDir.toPath());
+        fileSystem.add(createPackageJson(moduleDir, "app", "angular", "^1.5.0"));
+        fileSystem.add(createPackageJson(moduleDir, "lib", "@scope/util", "^2.1.0"));
+        when(context.fileSystem()).thenReturn(fileSystem);
+        return context;
+    }
+
+    private static InputFile createPackageJson(File moduleDir, String dir, String dependency, String version)
+        throws IOException
+    {
+        File file = new File(moduleDir, dir + "/package.json");
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), ("{\"dependencies\": {\"" + dependency + "\": \"" + version + "\"}}")
+            .getBytes(StandardCharsets.UTF_8));
+        InputFile packageJson = mock(InputFile.class);
+        when(packageJson.filename()).thenReturn("package.json");
+        when(packageJson.relativePath()).thenReturn(dir + "/package.json");
+        when(packageJson.type()).thenReturn(InputFile.Type.MAIN);
+        when(packageJson.uri()).thenReturn(file.toURI());
+        when(packageJson.inputStream()).thenAnswer(i -> new FileInputStream(file));
+        return packageJson;
+    }
+
     private Scanner createScanner()
     {
         return createScanner(false);
     }
 
     private Scanner createScanner(boolean resolveTransitiveDeps)
+    {
+        return createScanner(resolveTransitiveDeps, false);
+    }
+
+    private Scanner createScanner(boolean resolveTransitiveDeps, boolean useLockfile)
+    {
+        return new PackageJsonDependencyScanner(createLicenseMappingService(), resolveTransitiveDeps, useLockfile);
+    }
+
+    private static LicenseMappingService createLicenseMappingService()
     {
         LicenseMappingService licenseMappingService = mock(LicenseMappingService.class);
+        when(licenseMappingService.getLicenseMatcher()).thenReturn(LicenseMatcher.of(Collections.emptyList()));
         when(licenseMappingService.mapLicense(anyString())).thenCallRealMethod();
-        return new PackageJsonDependencyScanner(licenseMappingService, resolveTransitiveDeps);
+        return licenseMappingService;
     }
 }
@@ -30,6 +30,9 @@ import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyM
 import at.porscheinformatik.sonarqube.licensecheck.dependencymapping.DependencyMappingService;
 import at.porscheinformatik.sonarqube.licensecheck.license.License;
 import at.porscheinformatik.sonarqube.licensecheck.license.LicenseService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
+import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicenseService;
 
 public class ValidateLicensesTest
 {
@@ -45,10 +48,13 @@ public class ValidateLicensesTest
         module = mock(InputProject.class);
         when(module.key()).thenReturn("at.porscheinformatik.demo:demo");
         final LicenseService licenseService = mock(LicenseService.class);
-        when(licenseService.getLicenses(module)).thenReturn(Arrays.asList(new License("MIT", "MIT", "false"),
+        when(licenseService.getLicenses()).thenReturn(Arrays.asList(new License("MIT", "MIT", "false"),
             new License("LGPL is fantastic", "LGPL", "true"), APACHE_LICENSE));
+        final LicenseMappingService licenseMappingService = mock(LicenseMappingService.class);
+        when(licenseMappingService.getLicenseMatcher()).thenReturn(LicenseMatcher.of(Collections.emptyList()));
         dependencyMappingService = mock(DependencyMappingService.class);
-        validateLicenses = new ValidateLicenses(licenseService, dependencyMappingService);
+        validateLicenses = new ValidateLicenses(new LicensePolicyLoader(licenseService,
+            mock(ProjectLicenseService.class), licenseMappingService, dependencyMappingService));
     }
 
     private SensorContext createContext()
@@ -11,6 +11,8 @@ import java.util.Optional;
 
 import org.junit.Test;
 import org.sonar.api.config.Configuration;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 public class DependencyMappingSettingsServiceTest
@@ -19,6 +21,9 @@ public class DependencyMappingSettingsServiceTest
     public void migrate()
     {
         PersistentSettings persistentSettings = mock(PersistentSettings.class);
+        DbClient dbClient = mock(DbClient.class);
+        DbSession dbSession = mock(DbSession.class);
+        when(dbClient.openSession(false)).thenReturn(dbSession);
 
         Configuration configuration = mock(Configuration.class);
         when(configuration.get(any())).thenReturn(Optional.empty());
@@ -27,14 +32,16 @@ public class DependencyMappingSettingsServiceTest
                 + "{\"nameMatches\":\"test2\", \"license\":\"TEST\"}]"));
 
         DependencyMappingSettingsService service =
-            new DependencyMappingSettingsService(persistentSettings, configuration,
+            new DependencyMappingSettingsService(persistentSettings, dbClient, configuration,
                 new DependencyMappingService(configuration));
 
         service.init();
 
-        verify(persistentSettings).saveProperty(DEPENDENCY_MAPPING, "1,2");
-        verify(persistentSettings).saveProperty(DEPENDENCY_MAPPING + ".1." + DependencyMapping.FIELD_KEY, "test");
-        verify(persistentSettings).saveProperty(ALLOWED_DEPENDENCIES_KEY, null);
+        verify(persistentSettings).saveProperty(dbSession, DEPENDENCY_MAPPING, "1,2");
+        verify(persistentSettings)
+            .saveProperty(dbSession, DEPENDENCY_MAPPING + ".1." + DependencyMapping.FIELD_KEY, "test");
+        verify(persistentSettings).saveProperty(dbSession, ALLOWED_DEPENDENCIES_KEY, null);
+        verify(dbSession).commit();
 
     }
 }
@@ -0,0 +1,51 @@
+package at.porscheinformatik.sonarqube.licensecheck.dependencymapping;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DependencyMatcherTest
+{
+    private final DependencyMatcher matcher = DependencyMatcher.of(Arrays.asList(
+        new DependencyMapping("org.example:.*", "MIT", false),
+        new DependencyMapping("org.example:lib", "Apache-2.0", false),
+        new DependencyMapping("org.other:.*", "EPL-2.0", true),
+        new DependencyMapping("org.other:lib", "BSD-3-Clause", true),
+        new DependencyMapping(null, "MIT", true)));
+
+    @Test
+    public void firstMatchingMappingForMissingLicense()
+    {
+        assertThat(matcher.getLicense("org.example:lib", null), is("MIT"));
+        assertThat(matcher.getLicense("org.example:lib", ""), is("MIT"));
+        assertThat(matcher.getLicense("com.example:lib", null), nullValue());
+    }
+
+    @Test
+    public void existingLicenseIsKept()
+    {
+        assertThat(matcher.getLicense("org.example:lib", "GPL-3.0"), is("GPL-3.0"));
+    }
+
+    @Test
+    public void lastOverwritingMappingWins()
+    {
+        assertThat(matcher.getLicense("org.other:lib", "GPL-3.0"), is("BSD-3-Clause"));
+        assertThat(matcher.getLicense("org.other:app", null), is("EPL-2.0"));
+    }
+
+    @Test
+    public void patternIsCompiledOnce()
+    {
+        DependencyMapping dependencyMapping = new DependencyMapping("org.example:.*", "MIT", false);
+
+        assertThat(dependencyMapping.getPattern() == dependencyMapping.getPattern(), is(true));
+
+        dependencyMapping.setKey("org.other:.*");
+        assertThat(dependencyMapping.getPattern().pattern(), is("org.other:.*"));
+    }
+}
@@ -1,5 +1,8 @@
 package at.porscheinformatik.sonarqube.licensecheck.gradle;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -7,21 +10,30 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.regex.Pattern;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.sensor.SensorContext;
 
+import at.porscheinformatik.sonarqube.licensecheck.AnalysisStatistics;
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyCache;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMapping;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
 
 public class GradleDependencyScannerTest
 {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private SensorContext createContext(File folder)
     {
         SensorContext context = mock(SensorContext.class);
@@ -43,19 +55,89 @@ public class GradleDependencyScannerTest
     public void testScanner()
     {
         GradleDependencyScanner scanner = new GradleDependencyScanner(mockLicenseService());
-        Path resourceDirectory = Paths.get("src", "test", "resources");
+        Path resourceDirectory = Paths.get("src", "test", "resources", "gradle_project");
         String absolutePath = resourceDirectory.toFile().getAbsolutePath();
 
         Set<Dependency> dependencies = scanner.scan(createContext(new File(absolutePath)));
         assertEquals(43, dependencies.size());
     }
 
+    @Test
+    public void testImportedModules()
+    {
+        GradleDependencyScanner scanner = new GradleDependencyScanner(mockLicenseService());
+
+        Set<Dependency> dependencies =
+            scanner.scan(createContext(new File("src/test/resources/gradle_imported_modules")));
+
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("org.example:licensed", "1.0.0", "MIT"),
+            new Dependency("org.example:first-group", "2.0.0", "Apache-2.0"),
+            new Dependency("org.example:second-group", "3.0.0", "EPL-2.0"),
+            new Dependency("org.example:not-imported", "4.0.0", null)));
+    }
+
+    @Test
+    public void testMultiProject()
+    {
+        GradleDependencyScanner scanner = new GradleDependencyScanner(mockLicenseService());
+
+        Set<Dependency> dependencies =
+            scanner.scan(createContext(new File("src/test/resources/gradle_multi_project")));
+
+        assertThat(dependencies, containsInAnyOrder(
+            new Dependency("org.example:shared", "1.0.0", "MIT"),
+            new Dependency("org.example:app-only", "2.0.0", "Apache-2.0"),
+            new Dependency("org.example:lib-only", "3.0.0", "EPL-2.0")));
+    }
+
+    @Test
+    public void testUnchangedReportsAreTakenFromCache()
+    {
+        File projectDir = new File("src/test/resources/gradle_multi_project");
+        DependencyCache dependencyCache =
+            new DependencyCache(temporaryFolder.getRoot().toPath().resolve("dependencies.json"));
+        AnalysisStatistics statistics = new AnalysisStatistics();
+        GradleDependencyScanner scanner =
+            new GradleDependencyScanner(mockLicenseService(), statistics, Collections.emptySet(), dependencyCache);
+
+        Set<Dependency> dependencies = scanner.scan(createContext(projectDir));
+        assertEquals(0, statistics.get(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS));
+
+        assertThat(scanner.scan(createContext(projectDir)), is(dependencies));
+        assertEquals(3, statistics.get(AnalysisStatistics.Counter.DEPENDENCY_CACHE_HITS));
+    }
+
+    @Test
+    public void testFindLicenseDetailsJsonFiles()
+    {
+        File projectDir = new File("src/test/resources/gradle_multi_project");
+
+        assertThat(GradleDependencyScanner.findLicenseDetailsJsonFiles(projectDir), containsInAnyOrder(
+            new File(projectDir, "app/build/reports/dependency-license/license-details.json"),
+            new File(projectDir, "build/reports/dependency-license/license-details.json"),
+            new File(projectDir, "libs/lib/build/reports/dependency-license/license-details.json")));
+    }
+
+    @Test
+    public void testFindLicenseDetailsJsonFilesSkipsOtherModules()
+    {
+        File projectDir = new File("src/test/resources/gradle_multi_project");
+        Set<Path> moduleDirs = new HashSet<>(Arrays.asList(
+            projectDir.toPath().toAbsolutePath().normalize(),
+            projectDir.toPath().resolve("libs/lib").toAbsolutePath().normalize()));
+
+        assertThat(GradleDependencyScanner.findLicenseDetailsJsonFiles(projectDir, moduleDirs), containsInAnyOrder(
+            new File(projectDir, "app/build/reports/dependency-license/license-details.json"),
+            new File(projectDir, "build/reports/dependency-license/license-details.json")));
+    }
+
     private LicenseMappingService mockLicenseService()
     {
-        Map<Pattern, String> licenseMap = new HashMap<>();
-        licenseMap.put(Pattern.compile(".*Apache.*2.*"), "Apache-2.0");
+        LicenseMatcher licenseMatcher =
+            LicenseMatcher.of(Collections.singletonList(new LicenseMapping(".*Apache.*2.*", "Apache-2.0")));
         LicenseMappingService licenseService = Mockito.mock(LicenseMappingService.class);
-        when(licenseService.getLicenseMap()).thenReturn(licenseMap);
+        when(licenseService.getLicenseMatcher()).thenReturn(licenseMatcher);
         return licenseService;
     }
 }
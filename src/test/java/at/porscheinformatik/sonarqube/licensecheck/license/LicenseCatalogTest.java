@@ -0,0 +1,42 @@
+package at.porscheinformatik.sonarqube.licensecheck.license;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LicenseCatalogTest
+{
+    private final LicenseCatalog licenseCatalog = LicenseCatalog.of(Arrays.asList(
+        new License("MIT License", "MIT", "false"),
+        new License("Apache License 2.0", "Apache-2.0", "true"),
+        new License("Duplicate", "Apache-2.0", "false"),
+        new License("No identifier", null, "true")));
+
+    @Test
+    public void lookupByIdentifier()
+    {
+        assertThat(licenseCatalog.size(), is(2));
+        assertThat(licenseCatalog.get("MIT").getName(), is("MIT License"));
+        assertThat(licenseCatalog.get("Apache-2.0").getName(), is("Apache License 2.0"));
+        assertThat(licenseCatalog.get("GPL-3.0"), nullValue());
+        assertThat(licenseCatalog.get(null), nullValue());
+    }
+
+    @Test
+    public void allowed()
+    {
+        assertThat(licenseCatalog.isAllowed("Apache-2.0"), is(true));
+        assertThat(licenseCatalog.isAllowed("MIT"), is(false));
+        assertThat(licenseCatalog.isAllowed("GPL-3.0"), is(false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable()
+    {
+        licenseCatalog.getLicenses().clear();
+    }
+}
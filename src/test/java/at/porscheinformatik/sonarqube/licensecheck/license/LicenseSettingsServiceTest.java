@@ -4,6 +4,7 @@ import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKe
 import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_SET;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -11,6 +12,8 @@ import java.util.Optional;
 
 import org.junit.Test;
 import org.sonar.api.config.Configuration;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 import at.porscheinformatik.sonarqube.licensecheck.projectlicense.ProjectLicenseService;
@@ -22,7 +25,11 @@ public class LicenseSettingsServiceTest
     {
         Configuration configuration = mock(Configuration.class);
         PersistentSettings persistentSettings = mock(PersistentSettings.class);
-        LicenseSettingsService licenseSettingsService = new LicenseSettingsService(persistentSettings, configuration,
+        DbClient dbClient = mock(DbClient.class);
+        DbSession dbSession = mock(DbSession.class);
+        when(dbClient.openSession(false)).thenReturn(dbSession);
+        LicenseSettingsService licenseSettingsService = new LicenseSettingsService(persistentSettings, dbClient,
+            configuration,
             new LicenseService(configuration, mock(ProjectLicenseService.class)));
         when(configuration.getStringArray(anyString())).thenReturn(new String[0]);
         when(configuration.get(anyString())).thenReturn(Optional.empty());
@@ -33,7 +40,9 @@ public class LicenseSettingsServiceTest
 
         licenseSettingsService.init();
 
-        verify(persistentSettings).saveProperty(LICENSE_SET, "1,2");
-        verify(persistentSettings).saveProperty(LICENSE_KEY, null);
+        verify(persistentSettings).saveProperty(dbSession, LICENSE_SET, "1,2");
+        verify(persistentSettings).saveProperty(dbSession, LICENSE_KEY, null);
+        verify(dbSession).commit();
+        verify(persistentSettings, never()).saveProperty(anyString(), anyString());
     }
 }
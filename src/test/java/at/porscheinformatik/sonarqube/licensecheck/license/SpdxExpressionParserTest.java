@@ -0,0 +1,87 @@
+package at.porscheinformatik.sonarqube.licensecheck.license;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+
+public class SpdxExpressionParserTest
+{
+    private final LicenseCatalog licenseCatalog = LicenseCatalog.of(Arrays.asList(
+        new License("MIT License", "MIT", "true"),
+        new License("Apache License 2.0", "Apache-2.0", "true"),
+        new License("GNU General Public License v2.0 only", "GPL-2.0", "false"),
+        new License("GNU General Public License v3.0 or later", "GPL-3.0-or-later", "true"),
+        new License("Common Development and Distribution License", "Common Development and Distribution License",
+            "true")));
+
+    @Test
+    public void precedence()
+    {
+        assertThat(SpdxExpressionParser.parse("MIT OR Apache-2.0 AND GPL-2.0").toString(),
+            is("MIT OR (Apache-2.0 AND GPL-2.0)"));
+        assertThat(SpdxExpressionParser.parse("(MIT OR Apache-2.0) AND GPL-2.0").toString(),
+            is("(MIT OR Apache-2.0) AND GPL-2.0"));
+        assertThat(SpdxExpressionParser.parse("((MIT))").toString(), is("MIT"));
+    }
+
+    @Test
+    public void withAndOrLater()
+    {
+        SpdxExpression expression = SpdxExpressionParser.parse("GPL-2.0+ WITH Classpath-exception-2.0");
+
+        assertThat(expression, instanceOf(SpdxExpression.LicenseId.class));
+        SpdxExpression.LicenseId licenseId = (SpdxExpression.LicenseId) expression;
+        assertThat(licenseId.getId(), is("GPL-2.0"));
+        assertThat(licenseId.isOrLater(), is(true));
+        assertThat(licenseId.getException(), is("Classpath-exception-2.0"));
+    }
+
+    @Test
+    public void invalidExpressionIsSingleLicense()
+    {
+        assertThat(SpdxExpressionParser.parse("The MIT License (MIT)").toString(), is("The MIT License (MIT)"));
+        assertThat(SpdxExpressionParser.parse("MIT OR").toString(), is("MIT OR"));
+        assertThat(SpdxExpressionParser.parse("(MIT").toString(), is("(MIT"));
+    }
+
+    @Test
+    public void evaluate()
+    {
+        assertThat(evaluate("MIT"), is(Dependency.Status.Allowed));
+        assertThat(evaluate("GPL-2.0"), is(Dependency.Status.Forbidden));
+        assertThat(evaluate("Unknown-1.0"), is(Dependency.Status.Unknown));
+        assertThat(evaluate("GPL-2.0 OR MIT"), is(Dependency.Status.Allowed));
+        assertThat(evaluate("GPL-2.0 OR Unknown-1.0"), is(Dependency.Status.Unknown));
+        assertThat(evaluate("GPL-2.0 AND MIT"), is(Dependency.Status.Forbidden));
+        assertThat(evaluate("GPL-2.0 AND Unknown-1.0"), is(Dependency.Status.Unknown));
+        assertThat(evaluate("(GPL-2.0 OR MIT) AND Apache-2.0"), is(Dependency.Status.Allowed));
+        assertThat(evaluate("GPL-2.0 OR MIT AND GPL-2.0"), is(Dependency.Status.Forbidden));
+        assertThat(evaluate("GPL-3.0+"), is(Dependency.Status.Allowed));
+        assertThat(evaluate("MIT WITH Some-exception"), is(Dependency.Status.Allowed));
+        assertThat(evaluate("Common Development and Distribution License"), is(Dependency.Status.Allowed));
+    }
+
+    @Test
+    public void forbiddenLicensesAreCollected()
+    {
+        List<License> forbiddenLicenses = new ArrayList<>();
+
+        SpdxExpressionParser.parse("GPL-2.0 AND MIT").evaluate(licenseCatalog, forbiddenLicenses);
+
+        assertThat(forbiddenLicenses.size(), is(1));
+        assertThat(forbiddenLicenses.get(0).getIdentifier(), is("GPL-2.0"));
+    }
+
+    private Dependency.Status evaluate(String expression)
+    {
+        return SpdxExpressionParser.parse(expression).evaluate(licenseCatalog, new ArrayList<>());
+    }
+}
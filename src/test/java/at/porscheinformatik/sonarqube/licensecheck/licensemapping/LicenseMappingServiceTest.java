@@ -34,8 +34,24 @@ public class LicenseMappingServiceTest {
         assertThat(license, is("ASL2"));
     }
 
-    private LicenseMappingService createService() {
+    @Test
+    public void invalidateAppliesChangedMappings() {
         Configuration configuration = mock(Configuration.class);
+        LicenseMappingService service = createService(configuration);
+        assertThat(service.mapLicense("MIT"), is("MIT"));
+
+        when(configuration.get(LICENSE_MAPPING + ".1." + FIELD_LICENSE)).thenReturn(Optional.of("MIT-0"));
+        assertThat(service.mapLicense("MIT"), is("MIT"));
+
+        service.invalidate();
+        assertThat(service.mapLicense("MIT"), is("MIT-0"));
+    }
+
+    private LicenseMappingService createService() {
+        return createService(mock(Configuration.class));
+    }
+
+    private LicenseMappingService createService(Configuration configuration) {
         when(configuration.getStringArray(LICENSE_MAPPING)).thenReturn(new String[]{"1", "2"});
         when(configuration.get(LICENSE_MAPPING + ".1." + FIELD_REGEX)).thenReturn(Optional.of("MIT"));
         when(configuration.get(LICENSE_MAPPING + ".1." + FIELD_LICENSE)).thenReturn(Optional.of("MIT"));
@@ -3,8 +3,10 @@ package at.porscheinformatik.sonarqube.licensecheck.licensemapping;
 import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_MAPPING;
 import static at.porscheinformatik.sonarqube.licensecheck.LicenseCheckPropertyKeys.LICENSE_REGEX;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -13,12 +15,15 @@ import java.util.Optional;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.config.Configuration;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.server.platform.PersistentSettings;
 
 public class LicenseMappingSettingsServiceTest
 {
     Configuration configuration;
     PersistentSettings persistentSettings;
+    DbSession dbSession;
     LicenseMappingSettingsService licenseMappingSettingsService;
 
     @Before
@@ -26,8 +31,11 @@ public class LicenseMappingSettingsServiceTest
     {
         configuration = mock(Configuration.class);
         persistentSettings = mock(PersistentSettings.class);
+        dbSession = mock(DbSession.class);
+        DbClient dbClient = mock(DbClient.class);
+        when(dbClient.openSession(false)).thenReturn(dbSession);
         licenseMappingSettingsService =
-            new LicenseMappingSettingsService(persistentSettings, configuration,
+            new LicenseMappingSettingsService(persistentSettings, dbClient, configuration,
                 new LicenseMappingService(configuration));
 
         when(configuration.get(anyString())).thenReturn(Optional.empty());
@@ -38,7 +46,9 @@ public class LicenseMappingSettingsServiceTest
     {
         licenseMappingSettingsService.init();
 
-        verify(persistentSettings, atLeastOnce()).saveProperty(anyString(), anyString());
+        verify(persistentSettings, atLeastOnce()).saveProperty(eq(dbSession), anyString(), anyString());
+        verify(dbSession).commit();
+        verify(persistentSettings, never()).saveProperty(anyString(), anyString());
     }
 
     @Test
@@ -49,7 +59,8 @@ public class LicenseMappingSettingsServiceTest
 
         licenseMappingSettingsService.init();
 
-        verify(persistentSettings).saveProperty(LICENSE_MAPPING, "1");
-        verify(persistentSettings).saveProperty(LICENSE_REGEX, null);
+        verify(persistentSettings).saveProperty(dbSession, LICENSE_MAPPING, "1");
+        verify(persistentSettings).saveProperty(dbSession, LICENSE_REGEX, null);
+        verify(dbSession).commit();
     }
 }
@@ -0,0 +1,88 @@
+package at.porscheinformatik.sonarqube.licensecheck.licensemapping;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LicenseMatcherTest
+{
+    @Test
+    public void exactPrefixAndRegexMappings()
+    {
+        LicenseMatcher matcher = LicenseMatcher.of(Arrays.asList(
+            new LicenseMapping("^MIT$", "MIT"),
+            new LicenseMapping("^Apache.*2.*$", "Apache-2.0"),
+            new LicenseMapping(".*GPL.*3.*", "GPL-3.0")));
+
+        assertThat(matcher.match("MIT"), is("MIT"));
+        assertThat(matcher.match("MIT License"), nullValue());
+        assertThat(matcher.match("Apache License, Version 2.0"), is("Apache-2.0"));
+        assertThat(matcher.match("The Apache License, Version 2.0"), nullValue());
+        assertThat(matcher.match("GNU General Public License (GPL), Version 3"), is("GPL-3.0"));
+        assertThat(matcher.match(""), nullValue());
+        assertThat(matcher.match(null), nullValue());
+    }
+
+    @Test
+    public void firstConfiguredMappingWins()
+    {
+        LicenseMatcher matcher = LicenseMatcher.of(Arrays.asList(
+            new LicenseMapping(".*BSD.*", "BSD"),
+            new LicenseMapping("^BSD 3-Clause$", "BSD-3-Clause"),
+            new LicenseMapping("^BSD 2.*", "BSD-2-Clause")));
+
+        assertThat(matcher.match("BSD 3-Clause"), is("BSD"));
+        assertThat(matcher.match("BSD 2-Clause"), is("BSD"));
+
+        matcher = LicenseMatcher.of(Arrays.asList(
+            new LicenseMapping("^BSD 3-Clause$", "BSD-3-Clause"),
+            new LicenseMapping("^BSD 2.*", "BSD-2-Clause"),
+            new LicenseMapping(".*BSD.*", "BSD")));
+
+        assertThat(matcher.match("BSD 3-Clause"), is("BSD-3-Clause"));
+        assertThat(matcher.match("BSD 2-Clause"), is("BSD-2-Clause"));
+        assertThat(matcher.match("New BSD"), is("BSD"));
+    }
+
+    @Test
+    public void patternsWithoutCommonPrefix()
+    {
+        LicenseMatcher matcher = LicenseMatcher.of(Arrays.asList(
+            new LicenseMapping("^EPL|Eclipse Public License.*", "EPL"),
+            new LicenseMapping("ab*c", "ABC")));
+
+        assertThat(matcher.match("Eclipse Public License 1.0"), is("EPL"));
+        assertThat(matcher.match("ac"), is("ABC"));
+        assertThat(matcher.match("abbc"), is("ABC"));
+    }
+
+    @Test
+    public void resultsAreMemoized()
+    {
+        LicenseMatcher matcher = LicenseMatcher.of(Arrays.asList(
+            new LicenseMapping("^Apache.*2.*$", "Apache-2.0")));
+
+        assertThat(matcher.match("Apache License, Version 2.0"), is("Apache-2.0"));
+        assertThat(matcher.match("Apache License, Version 2.0"), is("Apache-2.0"));
+        assertThat(matcher.match("Unknown"), nullValue());
+        assertThat(matcher.match("Unknown"), nullValue());
+
+        assertThat(matcher.getMisses(), is(2L));
+        assertThat(matcher.getHits(), is(2L));
+    }
+
+    @Test
+    public void literalPrefix()
+    {
+        assertThat(LicenseMatcher.getLiteral("^MIT$"), is("MIT"));
+        assertThat(LicenseMatcher.getLiteral("Apache.*"), nullValue());
+        assertThat(LicenseMatcher.getLiteralPrefix("^Apache.*2.*$"), is("Apache"));
+        assertThat(LicenseMatcher.getLiteralPrefix("ab*c"), is("a"));
+        assertThat(LicenseMatcher.getLiteralPrefix(".*GPL.*"), is(""));
+        assertThat(LicenseMatcher.getLiteralPrefix("EPL|Eclipse.*"), is(""));
+    }
+}
@@ -9,23 +9,26 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.mockito.Mockito;
-import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.sensor.SensorContext;
 
 import at.porscheinformatik.sonarqube.licensecheck.Dependency;
 import at.porscheinformatik.sonarqube.licensecheck.Scanner;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMapping;
 import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMappingService;
+import at.porscheinformatik.sonarqube.licensecheck.licensemapping.LicenseMatcher;
 
 public class DependencyMappingScannerTest
 {
@@ -68,6 +71,82 @@ public class DependencyMappingScannerTest
         assertThat(dependencies.size(), is(0));
     }
 
+    @Test
+    public void testParallelScanMatchesSequentialScan() throws IOException
+    {
+        File emptyModuleDir = Files.createTempDirectory("lala").toFile();
+        emptyModuleDir.deleteOnExit();
+
+        Set<Dependency> sequential = new MavenDependencyScanner(mockLicenseService(), 1, false, null)
+            .scan(createContext(new File("."), emptyModuleDir));
+        Set<Dependency> parallel = new MavenDependencyScanner(mockLicenseService(), 2, false, null)
+            .scan(createContext(new File("."), emptyModuleDir));
+
+        assertThat(parallel.size(), Matchers.greaterThan(0));
+        assertThat(new ArrayList<>(parallel), is(new ArrayList<>(sequential)));
+    }
+
+    @Test
+    public void testParallelScanFailsLikeSequentialScan() throws IOException
+    {
+        File emptyModuleDir = Files.createTempDirectory("lala").toFile();
+        emptyModuleDir.deleteOnExit();
+
+        assertThat(scanFailure(1, emptyModuleDir), is("broken POM"));
+        assertThat(scanFailure(2, emptyModuleDir), is("broken POM"));
+    }
+
+    private String scanFailure(int parallelism, File emptyModuleDir)
+    {
+        InputFile brokenPomXml = createPomXml(new File("."), "/pom.xml");
+        when(brokenPomXml.lines()).thenThrow(new IllegalStateException("broken POM"));
+        SensorContext context = mock(SensorContext.class);
+        when(context.fileSystem()).thenReturn(new DefaultFileSystem(new File(".").toPath())
+            .add(brokenPomXml)
+            .add(createPomXml(emptyModuleDir, "/" + emptyModuleDir.getName() + "/pom.xml")));
+        try
+        {
+            new MavenDependencyScanner(mockLicenseService(), parallelism, false, null).scan(context);
+            return null;
+        }
+        catch (IllegalStateException e)
+        {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testReactorScanMatchesPerPomScan()
+    {
+        Set<Dependency> perPom = new MavenDependencyScanner(mockLicenseService(), 1, false, null)
+            .scan(createContext(new File(".")));
+        Set<Dependency> reactor = new MavenDependencyScanner(mockLicenseService(), 1, true, null)
+            .scan(createContext(new File(".")));
+
+        assertThat(reactor.size(), Matchers.greaterThan(0));
+        assertThat(reactor, is(perPom));
+    }
+
+    @Test
+    public void testFindParentPoms() throws IOException
+    {
+        File projectDir = Files.createTempDirectory("parents").toFile();
+        projectDir.deleteOnExit();
+        Path rootPom = writePom(projectDir.toPath().resolve("pom.xml"), "");
+        Path modulePom = writePom(projectDir.toPath().resolve("module/pom.xml"), "<parent>"
+            + "<groupId>org.example</groupId><artifactId>root</artifactId><version>1.0</version></parent>");
+        Path subModulePom = writePom(projectDir.toPath().resolve("module/sub/pom.xml"), "<parent>"
+            + "<groupId>org.example</groupId><artifactId>module</artifactId><version>1.0</version></parent>");
+        Path repositoryParentPom = writePom(projectDir.toPath().resolve("other/pom.xml"), "<parent>"
+            + "<groupId>org.example</groupId><artifactId>remote</artifactId><version>1.0</version>"
+            + "<relativePath/></parent>");
+
+        assertThat(MavenDependencyScanner.findParentPoms(rootPom).isEmpty(), is(true));
+        assertThat(MavenDependencyScanner.findParentPoms(subModulePom),
+            is(Arrays.asList(modulePom.toAbsolutePath().normalize(), rootPom.toAbsolutePath().normalize())));
+        assertThat(MavenDependencyScanner.findParentPoms(repositoryParentPom).isEmpty(), is(true));
+    }
+
     @Test
     public void testFindDependency()
     {
@@ -110,14 +189,27 @@ public class DependencyMappingScannerTest
         }
     }
 
-    private SensorContext createContext(File moduleDir)
+    private SensorContext createContext(File moduleDir, File... additionalModuleDirs)
     {
         SensorContext context = mock(SensorContext.class);
+        DefaultFileSystem fileSystem = new DefaultFileSystem(moduleDir.toPath())
+            .add(createPomXml(moduleDir, "/pom.xml"));
+        for (File additionalModuleDir : additionalModuleDirs)
+        {
+            fileSystem.add(createPomXml(additionalModuleDir, "/" + additionalModuleDir.getName() + "/pom.xml"));
+        }
+        when(context.fileSystem()).thenReturn(fileSystem);
+
+        return context;
+    }
+
+    private InputFile createPomXml(File moduleDir, String relativePath)
+    {
         InputFile pomXml = mock(InputFile.class);
         when(pomXml.language()).thenReturn("xml");
         when(pomXml.filename()).thenReturn("pom.xml");
         when(pomXml.uri()).thenReturn(new File(moduleDir, "pom.xml").toURI());
-        when(pomXml.relativePath()).thenReturn("/pom.xml");
+        when(pomXml.relativePath()).thenReturn(relativePath);
         when(pomXml.type()).thenReturn(InputFile.Type.MAIN);
         try
         {
@@ -127,18 +219,24 @@ public class DependencyMappingScannerTest
         {
             throw new RuntimeException(e);
         }
-        FileSystem fileSystem = new DefaultFileSystem(moduleDir.toPath()).add(pomXml);
-        when(context.fileSystem()).thenReturn(fileSystem);
+        return pomXml;
+    }
 
-        return context;
+    private static Path writePom(Path pomPath, String parent) throws IOException
+    {
+        Files.createDirectories(pomPath.getParent());
+        Files.write(pomPath, ("<project><modelVersion>4.0.0</modelVersion>" + parent
+            + "<artifactId>" + pomPath.getParent().getFileName() + "</artifactId></project>")
+            .getBytes(StandardCharsets.UTF_8));
+        return pomPath;
     }
 
     private LicenseMappingService mockLicenseService()
     {
-        Map<Pattern, String> licenseMap = new HashMap<>();
-        licenseMap.put(Pattern.compile(".*Apache.*2.*"), "Apache-2.0");
+        LicenseMatcher licenseMatcher =
+            LicenseMatcher.of(Collections.singletonList(new LicenseMapping(".*Apache.*2.*", "Apache-2.0")));
         LicenseMappingService licenseService = Mockito.mock(LicenseMappingService.class);
-        when(licenseService.getLicenseMap()).thenReturn(licenseMap);
+        when(licenseService.getLicenseMatcher()).thenReturn(licenseMatcher);
         return licenseService;
     }
 }
@@ -0,0 +1,99 @@
+package at.porscheinformatik.sonarqube.licensecheck.maven;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.maven.model.License;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+
+public class LicenseFinderTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File repositoryDir;
+
+    @Before
+    public void setup() throws IOException
+    {
+        repositoryDir = temporaryFolder.newFolder("repository");
+        writePom("org.example", "parent", "1.0",
+            "<licenses><license><name>Apache License, Version 2.0</name></license></licenses>");
+        writePom("org.example", "child-a", "1.0", parent());
+        writePom("org.example", "child-b", "1.0", parent());
+    }
+
+    @Test
+    public void licensesAreInheritedFromParent()
+    {
+        LicenseFinder licenseFinder = new LicenseFinder(repositoryDir, new PomLicenseCache());
+
+        List<License> licenses = licenseFinder.getLicenses(dependency("child-a"), pomPath("child-a"));
+
+        assertThat(licenses.size(), is(1));
+        assertThat(licenses.get(0).getName(), is("Apache License, Version 2.0"));
+    }
+
+    @Test
+    public void parentIsOnlyParsedOnce()
+    {
+        PomLicenseCache cache = new PomLicenseCache();
+        LicenseFinder licenseFinder = new LicenseFinder(repositoryDir, cache);
+
+        licenseFinder.getLicenses(dependency("child-a"), pomPath("child-a"));
+        licenseFinder.getLicenses(dependency("child-b"), pomPath("child-b"));
+        List<License> licenses = licenseFinder.getLicenses(dependency("child-a"), pomPath("child-a"));
+
+        assertThat(licenses.size(), is(1));
+        assertThat(cache.size(), is(3));
+        assertThat(cache.getMisses(), is(3L)); // child-a, parent, child-b
+        assertThat(cache.getHits(), is(2L)); // parent (via child-b), child-a
+    }
+
+    @Test
+    public void cacheIsBounded()
+    {
+        PomLicenseCache cache = new PomLicenseCache(2);
+        LicenseFinder licenseFinder = new LicenseFinder(repositoryDir, cache);
+
+        licenseFinder.getLicenses(dependency("child-a"), pomPath("child-a"));
+        licenseFinder.getLicenses(dependency("child-b"), pomPath("child-b"));
+
+        assertThat(cache.size(), is(2));
+    }
+
+    private static Dependency dependency(String artifactId)
+    {
+        return new Dependency("org.example:" + artifactId, "1.0", null);
+    }
+
+    private File pomPath(String artifactId)
+    {
+        return DirectoryFinder.getPomPath(dependency(artifactId), repositoryDir);
+    }
+
+    private static String parent()
+    {
+        return "<parent><groupId>org.example</groupId><artifactId>parent</artifactId><version>1.0</version></parent>";
+    }
+
+    private void writePom(String groupId, String artifactId, String version, String content) throws IOException
+    {
+        File pom = DirectoryFinder.getPomPath(new Dependency(groupId + ":" + artifactId, version, null), repositoryDir);
+        pom.getParentFile().mkdirs();
+        String xml = "<project><modelVersion>4.0.0</modelVersion><groupId>" + groupId + "</groupId><artifactId>"
+            + artifactId + "</artifactId><version>" + version + "</version>" + content + "</project>";
+        Files.write(pom.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
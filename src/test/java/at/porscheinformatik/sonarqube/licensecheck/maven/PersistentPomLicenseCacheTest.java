@@ -0,0 +1,89 @@
+package at.porscheinformatik.sonarqube.licensecheck.maven;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.License;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PersistentPomLicenseCacheTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path cacheFile;
+    private File pomFile;
+
+    @Before
+    public void setup() throws IOException
+    {
+        cacheFile = temporaryFolder.getRoot().toPath().resolve("cache/pom-licenses.json");
+        pomFile = temporaryFolder.newFile("lib-1.0.pom");
+        Files.write(pomFile.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void entriesSurviveSaveAndLoad()
+    {
+        PersistentPomLicenseCache cache = PersistentPomLicenseCache.load(cacheFile);
+        cache.put("org.example:lib:1.0", pomFile, licenses("MIT License"));
+        cache.save();
+
+        List<License> licenses = PersistentPomLicenseCache.load(cacheFile).get("org.example:lib:1.0", pomFile);
+
+        assertThat(licenses, notNullValue());
+        assertThat(licenses.size(), is(1));
+        assertThat(licenses.get(0).getName(), is("MIT License"));
+    }
+
+    @Test
+    public void changedPomInvalidatesEntry() throws IOException
+    {
+        PersistentPomLicenseCache cache = PersistentPomLicenseCache.load(cacheFile);
+        cache.put("org.example:lib:1.0", pomFile, licenses("MIT License"));
+        cache.save();
+
+        Files.write(pomFile.toPath(), "<project></project>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PersistentPomLicenseCache.load(cacheFile).get("org.example:lib:1.0", pomFile), nullValue());
+    }
+
+    @Test
+    public void snapshotsAndEmptyResultsAreNotStored()
+    {
+        PersistentPomLicenseCache cache = PersistentPomLicenseCache.load(cacheFile);
+        cache.put("org.example:lib:1.0-SNAPSHOT", pomFile, licenses("MIT License"));
+        cache.put("org.example:lib:1.0", pomFile, Collections.emptyList());
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void corruptFileIsIgnored() throws IOException
+    {
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, "{ not json".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PersistentPomLicenseCache.load(cacheFile).size(), is(0));
+    }
+
+    private static List<License> licenses(String name)
+    {
+        License license = new License();
+        license.setName(name);
+        return Collections.singletonList(license);
+    }
+}
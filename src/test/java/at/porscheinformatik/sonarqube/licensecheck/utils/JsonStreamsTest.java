@@ -0,0 +1,56 @@
+package at.porscheinformatik.sonarqube.licensecheck.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class JsonStreamsTest
+{
+    @Test
+    public void readsObjectsOfSelectedArrays()
+    {
+        List<String> dependencies = new ArrayList<>();
+        List<String> modules = new ArrayList<>();
+        Map<String, Consumer<JsonObject>> handlers = new HashMap<>();
+        handlers.put("dependencies", o -> dependencies.add(o.getString("name")));
+        handlers.put("modules", o -> modules.add(o.getString("name")));
+
+        JsonStreams.forEachArrayObject(json("{\"meta\": {\"dependencies\": [{\"name\": \"ignored\"}]},"
+            + " \"dependencies\": [{\"name\": \"a\", \"licenses\": [\"MIT\"]}, \"skipped\", [1, 2], {\"name\": \"b\"}],"
+            + " \"other\": [{\"name\": \"ignored\"}],"
+            + " \"modules\": [{\"name\": \"m\", \"dependencies\": [{\"name\": \"nested\"}]}]}"), handlers);
+
+        assertThat(dependencies.toString(), is("[a, b]"));
+        assertThat(modules.toString(), is("[m]"));
+    }
+
+    @Test
+    public void ignoresOtherDocuments()
+    {
+        List<JsonObject> objects = new ArrayList<>();
+        Map<String, Consumer<JsonObject>> handlers = new HashMap<>();
+        handlers.put("dependencies", objects::add);
+
+        JsonStreams.forEachArrayObject(json("[{\"dependencies\": [{}]}]"), handlers);
+        JsonStreams.forEachArrayObject(json("{\"dependencies\": {\"name\": \"a\"}}"), handlers);
+
+        assertThat(objects.size(), is(0));
+    }
+
+    private static InputStream json(String json)
+    {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
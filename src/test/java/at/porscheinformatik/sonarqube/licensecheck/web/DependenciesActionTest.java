@@ -0,0 +1,150 @@
+package at.porscheinformatik.sonarqube.licensecheck.web;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+import org.sonar.api.server.ws.LocalConnector;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.DependencyMeasure;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+public class DependenciesActionTest
+{
+    private final DependenciesAction action = new DependenciesAction();
+    private final LocalConnector localConnector = mock(LocalConnector.class);
+
+    @Test
+    public void pageOfDependencies()
+    {
+        mockMeasures(200, measuresResponse());
+
+        JsonObject result = call(createRequest(2, 2, null));
+
+        JsonObject paging = result.getJsonObject("paging");
+        assertThat(paging.getInt("pageIndex"), is(2));
+        assertThat(paging.getInt("total"), is(3));
+        assertThat(result.getJsonArray("dependencies").size(), is(1));
+        JsonObject dependency = result.getJsonArray("dependencies").getJsonObject(0);
+        assertThat(dependency.getString("name"), is("c-lib"));
+        assertThat(dependency.getString("status"), is("Unknown"));
+    }
+
+    @Test
+    public void filterByStatus()
+    {
+        mockMeasures(200, measuresResponse());
+
+        JsonObject result = call(createRequest(1, 100, "Forbidden"));
+
+        assertThat(result.getJsonObject("paging").getInt("total"), is(1));
+        assertThat(result.getJsonArray("dependencies").getJsonObject(0).getString("name"), is("b-lib"));
+    }
+
+    @Test
+    public void newAnalysisReplacesCachedDependencies()
+    {
+        mockMeasures(200, measuresResponse());
+        assertThat(call(createRequest(1, 100, null)).getJsonObject("paging").getInt("total"), is(3));
+
+        mockMeasures(200, measuresResponse(new Dependency("d-lib", "1.0", "MIT")));
+        JsonObject result = call(createRequest(1, 100, null));
+
+        assertThat(result.getJsonObject("paging").getInt("total"), is(1));
+        assertThat(result.getJsonArray("dependencies").getJsonObject(0).getString("name"), is("d-lib"));
+        verify(localConnector, times(2)).call(any());
+    }
+
+    @Test
+    public void forwardErrorOfMeasuresSearch() throws Exception
+    {
+        mockMeasures(404, "{\"errors\":[{\"msg\":\"Component key 'myproject' not found\"}]}");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Response.Stream stream = mock(Response.Stream.class);
+        when(stream.setStatus(404)).thenReturn(stream);
+        when(stream.setMediaType(any())).thenReturn(stream);
+        when(stream.output()).thenReturn(output);
+        Response response = mock(Response.class);
+        when(response.stream()).thenReturn(stream);
+
+        action.handle(createRequest(1, 100, null), response);
+
+        verify(stream).setStatus(404);
+        assertThat(output.toString("UTF-8"), containsString("not found"));
+    }
+
+    private static String measuresResponse()
+    {
+        return measuresResponse(
+            new Dependency("a-lib", "1.0", "MIT"),
+            new Dependency("b-lib", "1.0", "GPL-3.0"),
+            new Dependency("c-lib", "1.0", "Unlisted"));
+    }
+
+    private static String measuresResponse(Dependency... dependencyList)
+    {
+        String dependencies = DependencyMeasure.encode(Arrays.asList(dependencyList), false);
+        String licenses = License.createJsonString(Arrays.asList(
+            new License("MIT License", "MIT", true),
+            new License("GNU General Public License v3.0", "GPL-3.0", false)));
+        StringWriter json = new StringWriter();
+        Json.createGenerator(json).writeStartObject().writeStartArray("measures")
+            .writeStartObject().write("metric", "licensecheck.dependency").write("value", dependencies).writeEnd()
+            .writeStartObject().write("metric", "licensecheck.license").write("value", licenses).writeEnd()
+            .writeEnd().writeEnd().close();
+        return json.toString();
+    }
+
+    private LocalConnector.LocalResponse mockMeasures(int status, String body)
+    {
+        LocalConnector.LocalResponse response = mock(LocalConnector.LocalResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getBytes()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        when(localConnector.call(any())).thenReturn(response);
+        return response;
+    }
+
+    private Request createRequest(int page, int pageSize, String status)
+    {
+        Request request = mock(Request.class);
+        when(request.localConnector()).thenReturn(localConnector);
+        when(request.mandatoryParam(DependenciesAction.PARAM_PROJECT)).thenReturn("myproject");
+        when(request.param(DependenciesAction.PARAM_STATUS)).thenReturn(status);
+        when(request.mandatoryParam(WebService.Param.SORT)).thenReturn("name");
+        when(request.mandatoryParamAsBoolean(WebService.Param.ASCENDING)).thenReturn(true);
+        when(request.mandatoryParamAsInt(WebService.Param.PAGE)).thenReturn(page);
+        when(request.mandatoryParamAsInt(WebService.Param.PAGE_SIZE)).thenReturn(pageSize);
+        return request;
+    }
+
+    private JsonObject call(Request request)
+    {
+        StringWriter output = new StringWriter();
+        Response response = mock(Response.class);
+        when(response.newJsonWriter()).thenReturn(JsonWriter.of(output));
+
+        action.handle(request, response);
+
+        return Json.createReader(new StringReader(output.toString())).readObject();
+    }
+}
@@ -0,0 +1,62 @@
+package at.porscheinformatik.sonarqube.licensecheck.web;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import at.porscheinformatik.sonarqube.licensecheck.Dependency;
+import at.porscheinformatik.sonarqube.licensecheck.license.License;
+
+public class DependencyIndexTest
+{
+    private final DependencyIndex index = DependencyIndex.of(
+        Arrays.asList(
+            new Dependency("b-lib", "1.0", "MIT", "java"),
+            new Dependency("a-lib", "2.0", "GPL-3.0", "java"),
+            new Dependency("c-lib", "0.1", "Unlisted", "js"),
+            new Dependency("a-lib", "1.0", "MIT", "js")),
+        Arrays.asList(
+            new License("MIT License", "MIT", true),
+            new License("GNU General Public License v3.0", "GPL-3.0", false)));
+
+    @Test
+    public void status()
+    {
+        assertThat(names(index.find(Dependency.Status.Allowed, null, null, "name", true)),
+            contains("a-lib 1.0", "b-lib 1.0"));
+        assertThat(names(index.find(Dependency.Status.Forbidden, null, null, "name", true)),
+            contains("a-lib 2.0"));
+        assertThat(names(index.find(Dependency.Status.Unknown, null, null, "name", true)),
+            contains("c-lib 0.1"));
+    }
+
+    @Test
+    public void filterAndSort()
+    {
+        assertThat(names(index.find(null, null, null, "status", false)),
+            contains("c-lib 0.1", "a-lib 2.0", "b-lib 1.0", "a-lib 1.0"));
+        assertThat(names(index.find(null, "MIT", null, "version", true)),
+            contains("a-lib 1.0", "b-lib 1.0"));
+        assertThat(names(index.find(null, null, "js", "license", true)),
+            contains("a-lib 1.0", "c-lib 0.1"));
+        assertThat(index.find(null, "MIT", "js", "lang", true).size(), is(1));
+        assertThat(index.size(), is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSortField()
+    {
+        index.find(null, null, null, "unknown", true);
+    }
+
+    private static List<String> names(List<Dependency> dependencies)
+    {
+        return dependencies.stream().map(d -> d.getName() + " " + d.getVersion()).collect(Collectors.toList());
+    }
+}